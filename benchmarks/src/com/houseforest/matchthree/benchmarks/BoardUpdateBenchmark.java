@@ -0,0 +1,71 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.houseforest.matchthree.Board;
+import com.houseforest.matchthree.BoardEngine;
+import com.houseforest.matchthree.Game;
+import com.houseforest.matchthree.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame updates of the board view on the headless backend. Drawing is not included,
+ * the GL stub would make it meaningless.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BoardUpdateBenchmark {
+
+    private static final float FRAME_TIME = 1.0f / 60.0f;
+
+    @Param({ "8", "16", "32" })
+    public int size;
+
+    @Param({ "5" })
+    public int variants;
+
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        Game game = HeadlessGame.create();
+        board = new Board(game, size, size, variants, 1L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        board.dispose();
+    }
+
+    // A board nobody touches, only blinking pieces.
+    @Benchmark
+    public void idle() {
+        board.update(FRAME_TIME);
+    }
+
+    // A board that plays the hint whenever it settles, so frames cycle through swaps and cascades.
+    @Benchmark
+    public void playing() {
+        final int move = board.getHint();
+        if (move != MoveGenerator.NONE) {
+            final BoardEngine engine = board.getEngine();
+            final int width = engine.getWidth();
+            engine.swap(
+                    MoveGenerator.getX(move, width),
+                    MoveGenerator.getY(move, width),
+                    MoveGenerator.getTargetX(move, width),
+                    MoveGenerator.getTargetY(move, width)
+            );
+        }
+        board.update(FRAME_TIME);
+    }
+}
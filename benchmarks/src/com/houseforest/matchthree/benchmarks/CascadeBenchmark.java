@@ -0,0 +1,51 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.houseforest.matchthree.BoardEngine;
+import com.houseforest.matchthree.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full moves on a running engine: a valid swap followed by every cascade step it triggers,
+ * including the shuffles of boards that run out of moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CascadeBenchmark {
+
+    @Param({ "8", "16", "32" })
+    public int size;
+
+    @Param({ "5" })
+    public int variants;
+
+    private BoardEngine engine;
+
+    @Setup
+    public void setUp() {
+        engine = new BoardEngine(size, size, variants, 1L);
+    }
+
+    // Plays the hint and resolves the cascade, returns its depth.
+    @Benchmark
+    public int playHint() {
+        final int move = engine.findHint();
+        final int width = engine.getWidth();
+        engine.trySwap(
+                MoveGenerator.getX(move, width),
+                MoveGenerator.getY(move, width),
+                MoveGenerator.getTargetX(move, width),
+                MoveGenerator.getTargetY(move, width)
+        );
+        return engine.getDepth();
+    }
+}
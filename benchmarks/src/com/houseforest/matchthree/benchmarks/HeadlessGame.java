@@ -0,0 +1,72 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import com.houseforest.matchthree.Game;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+/**
+ * Runs the game on the headless backend with a GL stub, so views can be updated without a display.
+ */
+public class HeadlessGame {
+
+    private static HeadlessApplication application;
+
+    /**
+     * Starts the headless backend once per JVM and returns a game with its assets loaded.
+     */
+    public static synchronized Game create() {
+        if (application == null) {
+            application = new HeadlessApplication(new ApplicationAdapter() {}, new HeadlessApplicationConfiguration());
+            Gdx.gl = Gdx.gl20 = mockGL20();
+        }
+
+        Game game = new Game();
+        game.loadAssets();
+        return game;
+    }
+
+    // Every GL call succeeds and returns zero, textures upload into nothing.
+    // Shaders and programs get a handle and report a successful compile and link, frame buffers
+    // report complete, so sprite batches and offscreen layers can be created.
+    private static GL20 mockGL20() {
+        return (GL20) Proxy.newProxyInstance(
+                GL20.class.getClassLoader(),
+                new Class<?>[] { GL20.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String name = method.getName();
+                        if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+                            int parameter = (Integer) args[1];
+                            if (parameter == GL20.GL_COMPILE_STATUS || parameter == GL20.GL_LINK_STATUS) {
+                                ((IntBuffer) args[2]).put(0, 1);
+                            }
+                            return null;
+                        } else if (name.startsWith("glCreate")) {
+                            return 1;
+                        } else if (name.equals("glCheckFramebufferStatus")) {
+                            return GL20.GL_FRAMEBUFFER_COMPLETE;
+                        }
+
+                        Class<?> type = method.getReturnType();
+                        if (type == boolean.class) {
+                            return false;
+                        } else if (type == int.class) {
+                            return 0;
+                        } else if (type == float.class) {
+                            return 0.0f;
+                        }
+                        return null;
+                    }
+                }
+        );
+    }
+}
@@ -0,0 +1,63 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.houseforest.matchthree.BitBoard;
+import com.houseforest.matchthree.MatchCluster;
+import com.houseforest.matchthree.MatchFinder;
+import com.houseforest.matchthree.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Match detection through MatchFinder, as the engine runs it, on a randomly filled board
+ * that holds plenty of overlapping runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatchFinderBenchmark {
+
+    @Param({ "8", "16", "32", "64" })
+    public int size;
+
+    @Param({ "5" })
+    public int variants;
+
+    private BitBoard board;
+    private MatchFinder finder;
+    private ArrayList<MatchCluster> clusters;
+    private long[] matched;
+
+    @Setup
+    public void setUp() {
+        board = new BitBoard(size, size, variants);
+        board.refill(new RandomSource(1L));
+        finder = new MatchFinder(board);
+        clusters = new ArrayList<>();
+        matched = new long[size];
+    }
+
+    // Clusters of the whole board, as after a refill.
+    @Benchmark
+    public int findClustersFull() {
+        board.markAllDirty();
+        finder.find(clusters, matched);
+        return clusters.size();
+    }
+
+    // Clusters through a single changed cell, as after a swap.
+    @Benchmark
+    public int findClustersIncremental() {
+        board.markDirty(size / 2, size / 2);
+        finder.find(clusters, matched);
+        return clusters.size();
+    }
+}
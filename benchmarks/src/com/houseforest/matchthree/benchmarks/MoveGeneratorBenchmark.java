@@ -0,0 +1,54 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.houseforest.matchthree.BoardEngine;
+import com.houseforest.matchthree.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation on a settled board, as the game sees it between moves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MoveGeneratorBenchmark {
+
+    @Param({ "8", "16", "32", "64" })
+    public int size;
+
+    @Param({ "5" })
+    public int variants;
+
+    private MoveGenerator generator;
+    private int[] moves;
+
+    @Setup
+    public void setUp() {
+        BoardEngine engine = new BoardEngine(size, size, variants, 1L);
+        generator = engine.getMoveGenerator();
+        moves = new int[2 * size * size];
+    }
+
+    @Benchmark
+    public int generate() {
+        return generator.generate(moves);
+    }
+
+    @Benchmark
+    public int findHint() {
+        return generator.findHint();
+    }
+
+    @Benchmark
+    public boolean hasMove() {
+        return generator.hasMove();
+    }
+}
@@ -0,0 +1,60 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.houseforest.matchthree.BitBoard;
+import com.houseforest.matchthree.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clearing holes, compacting the columns and refilling them, cycling through fixed hole patterns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RefillBenchmark {
+
+    private static final int PATTERNS = 16;
+
+    @Param({ "8", "16", "32", "64" })
+    public int size;
+
+    @Param({ "5" })
+    public int variants;
+
+    private BitBoard board;
+    private RandomSource random;
+
+    // Row-major hole masks, about one cell in eight each.
+    private long[][] holes;
+    private int pattern;
+
+    @Setup
+    public void setUp() {
+        random = new RandomSource(1L);
+        board = new BitBoard(size, size, variants);
+        board.refill(random);
+
+        holes = new long[PATTERNS][size];
+        for (int i = 0; i < PATTERNS; ++i) {
+            for (int y = 0; y < size; ++y) {
+                holes[i][y] = random.nextLong() & random.nextLong() & random.nextLong() & board.getRowMask();
+            }
+        }
+    }
+
+    @Benchmark
+    public int clearFallRefill() {
+        pattern = (pattern + 1) % PATTERNS;
+        board.clearCells(holes[pattern]);
+        board.applyGravity();
+        return board.refill(random);
+    }
+}
@@ -0,0 +1,58 @@
+package com.houseforest.matchthree.benchmarks;
+
+import com.houseforest.matchthree.BoardEngine;
+import com.houseforest.matchthree.MoveGenerator;
+import com.houseforest.matchthree.MoveLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side score verification: decoding a session's move log and replaying it on a new
+ * engine, without animation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReplayBenchmark {
+
+    @Param({ "8", "16" })
+    public int size;
+
+    @Param({ "100" })
+    public int moves;
+
+    private byte[] log;
+
+    // Records a session that plays the hint once a second.
+    @Setup
+    public void setUp() {
+        final BoardEngine engine = new BoardEngine(size, size, 5, 1L);
+        final MoveLog moveLog = new MoveLog(size, size, 5, 1L);
+        for (int i = 0; i < moves; ++i) {
+            final int move = engine.findHint();
+            final int width = engine.getWidth();
+            engine.trySwap(
+                    MoveGenerator.getX(move, width),
+                    MoveGenerator.getY(move, width),
+                    MoveGenerator.getTargetX(move, width),
+                    MoveGenerator.getTargetY(move, width)
+            );
+            moveLog.record(i * 60L, move);
+        }
+        log = moveLog.toBytes();
+    }
+
+    // Returns the replayed score.
+    @Benchmark
+    public int verify() {
+        return MoveLog.fromBytes(log).replay().getScore();
+    }
+}
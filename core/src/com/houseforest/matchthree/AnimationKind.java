@@ -0,0 +1,10 @@
+package com.houseforest.matchthree;
+
+/**
+ * Animations every piece variant provides.
+ */
+public enum AnimationKind {
+    Idle,
+    Blink,
+    Explode
+}
@@ -0,0 +1,33 @@
+package com.houseforest.matchthree;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Piece animations indexed by variant and {@link AnimationKind}.
+ * Lookups are two array accesses, no hashing, string building or boxing.
+ */
+public class AnimationTable {
+
+    private static final AnimationKind[] KINDS = AnimationKind.values();
+
+    private final Animation<TextureRegion>[] animations;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public AnimationTable(int variantCount) {
+        this.animations = (Animation<TextureRegion>[]) new Animation[variantCount * KINDS.length];
+    }
+
+    public int getVariantCount() {
+        return animations.length / KINDS.length;
+    }
+
+    public void set(int variant, AnimationKind kind, Animation<TextureRegion> animation) {
+        animations[variant * KINDS.length + kind.ordinal()] = animation;
+        Util.log("Registered animation: " + kind + " " + (variant + 1) + " " + animation);
+    }
+
+    public Animation<TextureRegion> get(int variant, AnimationKind kind) {
+        return animations[variant * KINDS.length + kind.ordinal()];
+    }
+}
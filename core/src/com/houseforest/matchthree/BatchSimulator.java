@@ -0,0 +1,139 @@
+package com.houseforest.matchthree;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many games headlessly on all cores using {@link BoardEngine}.
+ *
+ * Games are split into ranges by a fork-join task. Every game owns its engine and a
+ * {@link RandomSource} seeded from the base seed and its index, and every leaf task fills
+ * its own {@link SimulationResults}, so worker threads share nothing but the policy.
+ */
+public class BatchSimulator {
+
+    // Games simulated by a single leaf task.
+    private static final int GAMES_PER_TASK = 64;
+
+    private int width = 8;
+    private int height = 8;
+    private int variantCount = 5;
+    private int movesPerGame = 30;
+    private long seed = 0L;
+    private MovePolicy policy = MovePolicy.RANDOM;
+
+    private int scoreBucketSize = 500;
+    private int scoreBuckets = 40;
+    private int maxDepth = 16;
+
+    public BatchSimulator setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    public BatchSimulator setVariantCount(int variantCount) {
+        this.variantCount = variantCount;
+        return this;
+    }
+
+    public BatchSimulator setMovesPerGame(int movesPerGame) {
+        this.movesPerGame = movesPerGame;
+        return this;
+    }
+
+    public BatchSimulator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public BatchSimulator setPolicy(MovePolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    public BatchSimulator setScoreHistogram(int bucketSize, int buckets) {
+        this.scoreBucketSize = bucketSize;
+        this.scoreBuckets = buckets;
+        return this;
+    }
+
+    public BatchSimulator setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    // Runs on a pool of its own, which is shut down once the games are done.
+    public SimulationResults run(int games) {
+        final ForkJoinPool pool = new ForkJoinPool();
+        try {
+            return run(games, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public SimulationResults run(int games, ForkJoinPool pool) {
+        return pool.invoke(new SimulationTask(0, games));
+    }
+
+    // Seed of a single game, mixed so that neighbouring indices get unrelated streams.
+    public long gameSeed(int game) {
+        return RandomSource.mix(seed + (game + 1) * 0x9E3779B97F4A7C15L);
+    }
+
+    private void play(int game, int[] moves, SimulationResults results) {
+        // The policy draws from its own stream so it cannot shift the pieces the board generates.
+        final RandomSource random = new RandomSource(gameSeed(game));
+        final BoardEngine engine = new BoardEngine(width, height, variantCount, random.nextLong());
+        final MoveGenerator generator = engine.getMoveGenerator();
+
+        // Dead boards are shuffled by the engine, so there is always a move to play.
+        for (int i = 0; i < movesPerGame; ++i) {
+            final int count = generator.generate(moves);
+
+            final int move = policy.choose(engine, moves, count, random);
+            engine.trySwap(
+                    MoveGenerator.getX(move, width),
+                    MoveGenerator.getY(move, width),
+                    MoveGenerator.getTargetX(move, width),
+                    MoveGenerator.getTargetY(move, width)
+            );
+            results.addMove(engine.getDepth());
+        }
+        results.addGame(engine.getScore(), engine.getShuffles());
+    }
+
+    private class SimulationTask extends RecursiveTask<SimulationResults> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int first;
+        private final int end;
+
+        SimulationTask(int first, int end) {
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        protected SimulationResults compute() {
+            if (end - first <= GAMES_PER_TASK) {
+                final SimulationResults results = new SimulationResults(scoreBucketSize, scoreBuckets, maxDepth);
+                final int[] moves = new int[2 * width * height];
+                for (int game = first; game < end; ++game) {
+                    play(game, moves, results);
+                }
+                return results;
+            }
+
+            final int middle = (first + end) >>> 1;
+            final SimulationTask left = new SimulationTask(first, middle);
+            final SimulationTask right = new SimulationTask(middle, end);
+            left.fork();
+            final SimulationResults results = right.compute();
+            results.merge(left.join());
+            return results;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.houseforest.matchthree;
+
+import java.util.Arrays;
+
+/**
+ * Render-independent board state.
+ *
+ * Every variant owns one bit mask, plus one mask for occupied cells. Masks are stored
+ * row-major (one long per row, bit x = column x) and mirrored column-major (one long per
+ * column, bit y = row y), so both horizontal and vertical rules reduce to shifts and ANDs.
+ * Row 0 is the top of the board, pieces fall towards higher rows.
+ */
+public class BitBoard {
+
+    public static final int EMPTY = -1;
+    public static final int MAX_SIZE = 64;
+
+    private final int width;
+    private final int height;
+    private final int variantCount;
+
+    // Bits that lie inside the board for a single row / column.
+    private final long rowMask;
+    private final long columnMask;
+
+    // Variant masks indexed by [variant][row] and [variant][column].
+    private final long[][] rows;
+    private final long[][] columns;
+    private final long[] occupiedRows;
+    private final long[] occupiedColumns;
+
+    // Rows (bit y) and columns (bit x) changed since the last match scan.
+    private long dirtyRows;
+    private long dirtyColumns;
+
+    // Scratch space for column compaction.
+    private final long[] compacted;
+
+    public BitBoard(int width, int height, int variantCount) {
+        if (width < 3 || width > MAX_SIZE || height < 3 || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be within [3, " + MAX_SIZE + "]: " + width + "x" + height);
+        }
+        if (variantCount < 1) {
+            throw new IllegalArgumentException("Variant count must be positive: " + variantCount);
+        }
+
+        this.width = width;
+        this.height = height;
+        this.variantCount = variantCount;
+        this.rowMask = width == 64 ? -1L : (1L << width) - 1;
+        this.columnMask = height == 64 ? -1L : (1L << height) - 1;
+        this.rows = new long[variantCount][height];
+        this.columns = new long[variantCount][width];
+        this.occupiedRows = new long[height];
+        this.occupiedColumns = new long[width];
+        this.compacted = new long[variantCount];
+        markAllDirty();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getVariantCount() {
+        return variantCount;
+    }
+
+    public long getRowMask() {
+        return rowMask;
+    }
+
+    public long getColumnMask() {
+        return columnMask;
+    }
+
+    // Row-major mask of a single variant.
+    public long getVariantRow(int variant, int y) {
+        return rows[variant][y];
+    }
+
+    // Column-major mask of a single variant.
+    public long getVariantColumn(int variant, int x) {
+        return columns[variant][x];
+    }
+
+    public long getOccupiedRow(int y) {
+        return occupiedRows[y];
+    }
+
+    public long getOccupiedColumn(int x) {
+        return occupiedColumns[x];
+    }
+
+    public long getDirtyRows() {
+        return dirtyRows;
+    }
+
+    public long getDirtyColumns() {
+        return dirtyColumns;
+    }
+
+    public boolean isDirty() {
+        return dirtyRows != 0;
+    }
+
+    public void markDirty(int x, int y) {
+        dirtyRows |= 1L << y;
+        dirtyColumns |= 1L << x;
+    }
+
+    public void markAllDirty() {
+        dirtyRows = columnMask;
+        dirtyColumns = rowMask;
+    }
+
+    // Called once the dirty lines have been scanned.
+    public void clearDirty() {
+        dirtyRows = 0L;
+        dirtyColumns = 0L;
+    }
+
+    public int get(int x, int y) {
+        if (((occupiedColumns[x] >>> y) & 1L) == 0) {
+            return EMPTY;
+        }
+        for (int v = 0; v < variantCount; ++v) {
+            if (((columns[v][x] >>> y) & 1L) != 0) {
+                return v;
+            }
+        }
+        return EMPTY;
+    }
+
+    public boolean isEmpty(int x, int y) {
+        return ((occupiedColumns[x] >>> y) & 1L) == 0;
+    }
+
+    public void set(int x, int y, int variant) {
+        clear(x, y);
+        if (variant != EMPTY) {
+            rows[variant][y] |= 1L << x;
+            columns[variant][x] |= 1L << y;
+            occupiedRows[y] |= 1L << x;
+            occupiedColumns[x] |= 1L << y;
+        }
+    }
+
+    public void clear(int x, int y) {
+        final long rowBit = ~(1L << x);
+        final long columnBit = ~(1L << y);
+        for (int v = 0; v < variantCount; ++v) {
+            rows[v][y] &= rowBit;
+            columns[v][x] &= columnBit;
+        }
+        occupiedRows[y] &= rowBit;
+        occupiedColumns[x] &= columnBit;
+        markDirty(x, y);
+    }
+
+    public void clearAll() {
+        for (int v = 0; v < variantCount; ++v) {
+            Arrays.fill(rows[v], 0L);
+            Arrays.fill(columns[v], 0L);
+        }
+        Arrays.fill(occupiedRows, 0L);
+        Arrays.fill(occupiedColumns, 0L);
+        markAllDirty();
+    }
+
+    public void swap(int x1, int y1, int x2, int y2) {
+        int first = get(x1, y1);
+        int second = get(x2, y2);
+        set(x1, y1, second);
+        set(x2, y2, first);
+    }
+
+    // Whether bit i of the line mask is part of three consecutive set bits.
+    public static boolean hasTripleAround(long line, int i) {
+        final long triples = line & (line >>> 1) & (line >>> 2);
+
+        // Triples starting at i - 2, i - 1 and i cover bit i.
+        final long window = i >= 2 ? (triples >>> (i - 2)) : (triples << (2 - i));
+        return (window & 0x7L) != 0;
+    }
+
+    // Removes all cells set in the row-major mask.
+    public void clearCells(long[] mask) {
+        for (int y = 0; y < height; ++y) {
+            long bits = mask[y];
+            if (bits == 0) {
+                continue;
+            }
+
+            for (int v = 0; v < variantCount; ++v) {
+                rows[v][y] &= ~bits;
+            }
+            occupiedRows[y] &= ~bits;
+            dirtyRows |= 1L << y;
+            dirtyColumns |= bits;
+
+            final long columnBit = ~(1L << y);
+            while (bits != 0) {
+                int x = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                for (int v = 0; v < variantCount; ++v) {
+                    columns[v][x] &= columnBit;
+                }
+                occupiedColumns[x] &= columnBit;
+            }
+        }
+    }
+
+    /**
+     * Lets every piece fall down as far as possible, compacting each column in one pass.
+     * @return Whether any piece moved.
+     */
+    public boolean applyGravity() {
+        boolean moved = false;
+        for (int x = 0; x < width; ++x) {
+            final long occupied = occupiedColumns[x];
+            final int count = Long.bitCount(occupied);
+
+            // Already resting on the bottom without holes.
+            final long settled = count == 0 ? 0L : (columnMask & ~((1L << (height - count)) - 1));
+            if (occupied == settled) {
+                continue;
+            }
+
+            for (int v = 0; v < variantCount; ++v) {
+                compacted[v] = 0L;
+            }
+
+            // Walk occupied cells bottom-up and stack them from the bottom row.
+            long remaining = occupied;
+            int dest = height - 1;
+            while (remaining != 0) {
+                final int y = 63 - Long.numberOfLeadingZeros(remaining);
+                final long source = 1L << y;
+                remaining &= ~source;
+                for (int v = 0; v < variantCount; ++v) {
+                    if ((columns[v][x] & source) != 0) {
+                        compacted[v] |= 1L << dest;
+                        break;
+                    }
+                }
+                --dest;
+            }
+
+            // Mirror the new column into the row masks, only rows whose cell changed become dirty.
+            final long rowBit = 1L << x;
+            long changed = 0L;
+            for (int v = 0; v < variantCount; ++v) {
+                changed |= columns[v][x] ^ compacted[v];
+                columns[v][x] = compacted[v];
+                final long[] mask = rows[v];
+                for (int y = 0; y < height; ++y) {
+                    mask[y] = (mask[y] & ~rowBit) | (((compacted[v] >>> y) & 1L) << x);
+                }
+            }
+            occupiedColumns[x] = settled;
+            for (int y = 0; y < height; ++y) {
+                occupiedRows[y] = (occupiedRows[y] & ~rowBit) | (((settled >>> y) & 1L) << x);
+            }
+            dirtyRows |= changed | (occupied ^ settled);
+            dirtyColumns |= rowBit;
+            moved = true;
+        }
+        return moved;
+    }
+
+    /**
+     * Fills every empty cell with a random variant.
+     * @return Number of cells filled.
+     */
+    public int refill(RandomSource random) {
+        int filled = 0;
+        for (int y = 0; y < height; ++y) {
+            long empty = ~occupiedRows[y] & rowMask;
+            while (empty != 0) {
+                int x = Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                set(x, y, random.nextInt(variantCount));
+                ++filled;
+            }
+        }
+        return filled;
+    }
+}
@@ -1,49 +1,98 @@
 package com.houseforest.matchthree;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Disposable;
 
-import java.util.Vector;
+import java.util.List;
 
 /**
  * Created by Tom on 13.01.2017.
  */
 
-public class Board extends SceneNode implements Disposable {
+public class Board extends SceneNode implements BoardEngine.Listener, Disposable {
 
     public enum State {
         Idle,
         Swapping,
+        Bouncing,
         Falling,
-        Refilling,
         Exploding,
         Checking
     }
 
-    private Texture backgroundTexture;
-    private Piece[][] pieces;
+    // The grid art shows 8x8 cells, boards of other sizes tile one of its inner cells.
+    private static final int GRID_ART_CELLS = 8;
+
+    // Fraction of a cell that pieces of a rejected swap move towards each other.
+    private static final float BOUNCE_DISTANCE = 0.3f;
+
+    private Texture gridTexture;
+    private Texture backdropTexture;
+    private TextureRegion gridCell;
+    private BoardEngine engine;
+
+    // Piece slot of every cell, indexed x + y * width, or PieceStore.NONE.
+    private int[] pieces;
+    private PieceStore pieceStore;
+
+    // Scratch space for rearranging pieces when the engine shuffles.
+    private int[] shufflePieces;
+    private int[] shuffleNext;
+    private int[] shuffleEnd;
     private Vector2i pieceCount;
+    private int cellSize;
     private Vector2i sizeInPixels;
     private Vector2i offset;
     private Vector2i margin;
     private Vector2i touchPosition;
+    private Vector2i dragPosition;
+    private boolean touchValid;
     private boolean dragProcessed;
-    private Vector<Vector2i> explosionCoordinates;
+
+    // Pieces cleared by the current cascade step, freed once they have exploded.
+    private int[] explodingPieces;
+    private int explodingPieceCount;
+
+    // Refills of the current cascade step: variant per cell, number of new pieces per column
+    // and the columns (bit x) that pieces fall in.
+    private int[] spawnVariants;
+    private int[] spawnCounts;
+    private long fallingColumns;
+
+    // Cells of a rejected swap whose pieces bounce back, and whether they are on their way back.
+    private Vector2i bounceFirst;
+    private Vector2i bounceSecond;
+    private boolean bounceReturning;
+
+    // Move made while the board was busy, applied once it settles unless a newer move replaces it.
+    private Vector2i pendingFirst;
+    private Vector2i pendingSecond;
+    private boolean hasPendingMove;
 
     private State state;
 
-    // Handle refilling the game board with new pieces.
-    private Vector<Piece> refillPieces;
+    // Updates so far, the clock of the move log.
+    private long ticks;
+    private MoveLog moveLog;
 
-    public Board(Game game) {
+    /**
+     * @param variantCount Between 3 and {@link Game#getMaxVariantCount()}.
+     */
+    public Board(Game game, int width, int height, int variantCount, long seed) {
         super(game);
 
-        pieceCount = new Vector2i(8);
+        if (variantCount < 3 || variantCount > Game.getMaxVariantCount()) {
+            throw new IllegalArgumentException("Variant count must be within [3, " + Game.getMaxVariantCount() + "]: " + variantCount);
+        }
+
+        pieceCount = new Vector2i(width, height);
 
-        int minDim = Math.min(Game.RESOLUTION.x, Game.RESOLUTION.y);
-        sizeInPixels = new Vector2i(Math.round(minDim * 0.95f));
+        // Square cells, as large as the longer side allows.
+        int minDim = Math.round(Math.min(Game.RESOLUTION.x, Game.RESOLUTION.y) * 0.95f);
+        cellSize = Math.min(minDim / width, minDim / height);
+        sizeInPixels = new Vector2i(cellSize * width, cellSize * height);
 
         offset = new Vector2i(
                 (Game.RESOLUTION.x - sizeInPixels.x) / 2,
@@ -52,227 +101,270 @@ public class Board extends SceneNode implements Disposable {
 
         margin = new Vector2i(0);
 
-        this.pieces = new Piece[pieceCount.x][pieceCount.y];
+        // The engine holds the game state, pieces only animate its events.
+        this.engine = new BoardEngine(pieceCount.x, pieceCount.y, variantCount, seed);
+        this.engine.setListener(this);
+
+        this.shufflePieces = new int[pieceCount.x * pieceCount.y];
+        this.shuffleNext = new int[variantCount];
+        this.shuffleEnd = new int[variantCount];
+
+        // Every cell holds one piece at a time, exploded pieces are freed before refilling.
+        this.pieceStore = new PieceStore(this, game.getAnimationTable(), pieceCount.x * pieceCount.y);
+
+        this.pieces = new int[pieceCount.x * pieceCount.y];
         for (int x = 0; x < pieceCount.x; ++x) {
             for (int y = 0; y < pieceCount.y; ++y) {
-                setPieceAt(x, y, Piece.random(game, this, x, y));
+                setPieceAt(x, y, pieceStore.obtain(x, y, engine.get(x, y)));
             }
         }
 
-        this.backgroundTexture = new Texture(Gdx.files.internal("general/grid.png"));
-
-        this.state = State.Checking;
-
-        this.refillPieces = new Vector<>();
-        this.explosionCoordinates = new Vector<>();
+        this.gridTexture = game.getTexture(Game.GRID_TEXTURE);
+        int artCell = gridTexture.getWidth() / GRID_ART_CELLS;
+        this.gridCell = new TextureRegion(gridTexture, artCell, artCell, artCell, artCell);
+
+        // The game's background, redrawn behind cells of the cached layer that change.
+        this.backdropTexture = game.getTexture(Game.BACKGROUND_TEXTURE);
+
+        // The engine generates a board without matches, there is nothing to resolve.
+        this.state = State.Idle;
+
+        this.touchPosition = new Vector2i(0);
+        this.dragPosition = new Vector2i(0);
+        this.bounceFirst = new Vector2i(0);
+        this.bounceSecond = new Vector2i(0);
+        this.pendingFirst = new Vector2i(0);
+        this.pendingSecond = new Vector2i(0);
+        this.explodingPieces = new int[pieceCount.x * pieceCount.y];
+        this.spawnVariants = new int[pieceCount.x * pieceCount.y];
+        this.spawnCounts = new int[pieceCount.x];
     }
 
-    public Vector2i toBoardSpace(Vector2i screenPoint) {
-        final int areaX = sizeInPixels.x - 2 * margin.x;
-        final int areaY = sizeInPixels.y - 2 * margin.y;
-        final int boardX = screenPoint.x - offset.x - margin.x;
-        final int boardY = screenPoint.y - offset.y - margin.y;
-        final int pieceAreaX = areaX / pieceCount.x;
-        final int pieceAreaY = areaY / pieceCount.y;
-
-        return new Vector2i(
-                boardX / pieceAreaX,
-                boardY / pieceAreaY
-        );
+    /**
+     * Converts a screen point into the board cell below it.
+     * @return Whether the point lies on the board.
+     */
+    public boolean toBoardSpace(int screenX, int screenY, Vector2i out) {
+        final int boardX = screenX - offset.x - margin.x;
+        final int boardY = screenY - offset.y - margin.y;
+
+        out.x = boardX / cellSize;
+        out.y = boardY / cellSize;
+        return boardX >= 0 && boardY >= 0 && out.x < pieceCount.x && out.y < pieceCount.y;
     }
 
     public void onDrag(int screenX, int screenY) {
+        if (!dragProcessed) {
+            if (!toBoardSpace(screenX, screenY, dragPosition) || !touchValid) {
+                // Dragged off the board.
+                dragProcessed = true;
+            }
 
-        // Ignore input during animations.
-        if(state == State.Idle) {
-            if (!dragProcessed) {
-                Vector2i dragPosition = toBoardSpace(new Vector2i(screenX, screenY));
-                if (dragPosition == null || touchPosition == null) {
-                    // Dragged off the board.
+            // Potential horizontal move.
+            else if (dragPosition.y == touchPosition.y) {
+                if (dragPosition.x == touchPosition.x - 1 || dragPosition.x == touchPosition.x + 1) {
                     dragProcessed = true;
+                    requestSwap(touchPosition, dragPosition);
                 }
+            }
 
-                // Potential horizontal move.
-                else if (dragPosition.y == touchPosition.y) {
-                    if (dragPosition.x == touchPosition.x - 1 || dragPosition.x == touchPosition.x + 1) {
-                        dragProcessed = true;
-                        swap(touchPosition, dragPosition);
-                    }
-                }
-
-                // Potential vertical move.
-                else if (dragPosition.x == touchPosition.x) {
-                    if (dragPosition.y == touchPosition.y - 1 || dragPosition.y == touchPosition.y + 1) {
-                        dragProcessed = true;
-                        swap(touchPosition, dragPosition);
-                    }
+            // Potential vertical move.
+            else if (dragPosition.x == touchPosition.x) {
+                if (dragPosition.y == touchPosition.y - 1 || dragPosition.y == touchPosition.y + 1) {
+                    dragProcessed = true;
+                    requestSwap(touchPosition, dragPosition);
                 }
             }
-        } else {
-            dragProcessed = true;
         }
     }
 
+    /**
+     * Gestures are tracked in every state, moves made during animations are buffered.
+     */
     public void onTouch(int screenX, int screenY) {
+        touchValid = toBoardSpace(screenX, screenY, touchPosition);
+        dragProcessed = false;
+    }
 
-        // Ignore input during animations.
-        if(state == State.Idle) {
-            Vector2i pt = toBoardSpace(new Vector2i(screenX, screenY));
-            if (pt != null) {
-                touchPosition = pt;
-                dragProcessed = false;
-            }
+    private void requestSwap(Vector2i firstPosition, Vector2i secondPosition) {
+        if (state == State.Idle) {
+            // A move buffered before the board settled is older than this one, drop it.
+            hasPendingMove = false;
+            swap(firstPosition, secondPosition);
         } else {
-            touchPosition = null;
-            dragProcessed = false;
+            // Only the latest move is kept, it is validated once the board has settled.
+            pendingFirst.x = firstPosition.x;
+            pendingFirst.y = firstPosition.y;
+            pendingSecond.x = secondPosition.x;
+            pendingSecond.y = secondPosition.y;
+            hasPendingMove = true;
         }
     }
 
-    private void refill() {
-        state = State.Refilling;
-
-        // Find empty grid cells.
-        Vector2i bpos = new Vector2i(0);
-        for(int x = 0; x < pieceCount.x; ++x){
-            for(int y = 0; y < pieceCount.y; ++y){
-                if(pieces[x][y] == null) {
-                    bpos.x = x;
-                    bpos.y = y;
-                    pieces[x][y] = Piece.random(
-                            getGame(),
-                            this,
-                            x,
-                            y - pieceCount.y
-                    );
-                    pieces[x][y].moveToBoardPosition(bpos, Piece.MovementType.Fall);
-                }
-            }
+    private void swap(Vector2i firstPosition, Vector2i secondPosition) {
+
+        // Only swaps that create a match reach the engine, checking the lines through both cells is enough.
+        if (engine.isValidSwap(firstPosition.x, firstPosition.y, secondPosition.x, secondPosition.y)) {
+            engine.swap(firstPosition.x, firstPosition.y, secondPosition.x, secondPosition.y);
+        } else {
+            bounce(firstPosition, secondPosition);
         }
     }
 
-    private void swap(Vector2i firstPosition, Vector2i secondPosition) {
-        state = State.Swapping;
-
-        Piece first = pieces[firstPosition.x][firstPosition.y];
-        first.moveToBoardPosition(secondPosition, Piece.MovementType.Swap);
+    // Nudges both pieces towards each other and back, the board itself does not change.
+    private void bounce(Vector2i firstPosition, Vector2i secondPosition) {
+        state = State.Bouncing;
+        bounceReturning = false;
+        bounceFirst.x = firstPosition.x;
+        bounceFirst.y = firstPosition.y;
+        bounceSecond.x = secondPosition.x;
+        bounceSecond.y = secondPosition.y;
+
+        final float dx = (secondPosition.x - firstPosition.x) * BOUNCE_DISTANCE;
+        final float dy = (secondPosition.y - firstPosition.y) * BOUNCE_DISTANCE;
+        pieceStore.moveTo(getPieceAt(firstPosition.x, firstPosition.y), firstPosition.x + dx, firstPosition.y + dy, PieceStore.MovementType.Swap);
+        pieceStore.moveTo(getPieceAt(secondPosition.x, secondPosition.y), secondPosition.x - dx, secondPosition.y - dy, PieceStore.MovementType.Swap);
+    }
 
-        Piece second = pieces[secondPosition.x][secondPosition.y];
-        second.moveToBoardPosition(firstPosition, Piece.MovementType.Swap);
+    private void updateBounceState(float dt) {
+        if (pieceStore.getMovingCount() != 0) {
+            return;
+        }
 
-        pieces[firstPosition.x][firstPosition.y] = second;
-        pieces[secondPosition.x][secondPosition.y] = first;
+        if (!bounceReturning) {
+            bounceReturning = true;
+            pieceStore.moveTo(getPieceAt(bounceFirst.x, bounceFirst.y), bounceFirst.x, bounceFirst.y, PieceStore.MovementType.Swap);
+            pieceStore.moveTo(getPieceAt(bounceSecond.x, bounceSecond.y), bounceSecond.x, bounceSecond.y, PieceStore.MovementType.Swap);
+        } else {
+            state = State.Idle;
+        }
     }
 
-    private Match findMatch() {
+    @Override
+    public void onSwap(int x1, int y1, int x2, int y2) {
+        state = State.Swapping;
+        if (moveLog != null) {
+            moveLog.record(ticks, x1, y1, x2, y2);
+        }
 
-        // Check for horizontal match.
-        for (int y = 0; y < pieceCount.y; ++y) {
-            for (int x0 = 0; x0 < pieceCount.x - 2; ++x0) {
-                Piece.Variant v = getPieceAt(x0, y).getVariant();
+        int first = getPieceAt(x1, y1);
+        int second = getPieceAt(x2, y2);
+        pieceStore.moveTo(first, x2, y2, PieceStore.MovementType.Swap);
+        pieceStore.moveTo(second, x1, y1, PieceStore.MovementType.Swap);
 
-                int x1 = x0 + 1;
-                for (; x1 < pieceCount.x; ++x1) {
-                    if (getPieceAt(x1, y).getVariant() != v) {
-                        break;
-                    }
-                }
+        setPieceAt(x1, y1, second);
+        setPieceAt(x2, y2, first);
+    }
 
-                // Matching [x0, x1).
-                int matchedCount = x1 - x0;
-                if (matchedCount >= 3) {
-                    return new Match(new Vector2i(x0, y), new Vector2i(x1 - 1, y));
-                }
+    @Override
+    public void onClear(List<MatchCluster> clusters, long[] cells, int depth, int points) {
+        for(int y = 0; y < pieceCount.y; ++y) {
+            long bits = cells[y];
+            while(bits != 0) {
+                int x = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int piece = getPieceAt(x, y);
+                pieceStore.explode(piece);
+                explodingPieces[explodingPieceCount++] = piece;
+                setPieceAt(x, y, PieceStore.NONE);
             }
         }
+        state = State.Exploding;
+    }
 
-        // Check for vertical matches.
-        for (int x = 0; x < pieceCount.x; ++x) {
-            for (int y0 = 0; y0 < pieceCount.y - 2; ++y0) {
-                Piece.Variant v = getPieceAt(x, y0).getVariant();
+    @Override
+    public void onFall(int x, int fromY, int toY) {
+
+        // Falls arrive bottom-up, so the target cell has already been vacated.
+        // The piece keeps its position until the explosions are over, see startFalling().
+        setPieceAt(x, toY, getPieceAt(x, fromY));
+        setPieceAt(x, fromY, PieceStore.NONE);
+        fallingColumns |= 1L << x;
+    }
+
+    @Override
+    public void onSpawn(int x, int y, int variant) {
+        spawnVariants[x + y * pieceCount.x] = variant;
+        ++spawnCounts[x];
+        fallingColumns |= 1L << x;
+    }
 
-                int y1 = y0 + 1;
-                for (; y1 < pieceCount.y; ++y1) {
-                    if (getPieceAt(x, y1).getVariant() != v) {
-                        break;
+    @Override
+    public void onShuffle() {
+        final int variantCount = shuffleNext.length;
+
+        // Collect the existing pieces, grouped by variant.
+        int count = 0;
+        for (int variant = 0; variant < variantCount; ++variant) {
+            shuffleNext[variant] = count;
+            for (int x = 0; x < pieceCount.x; ++x) {
+                for (int y = 0; y < pieceCount.y; ++y) {
+                    if (pieceStore.getVariant(getPieceAt(x, y)) == variant) {
+                        shufflePieces[count++] = getPieceAt(x, y);
                     }
                 }
+            }
+            shuffleEnd[variant] = count;
+        }
 
-                // Matching [y0, y1).
-                int matchedCount = y1 - y0;
-                if (matchedCount >= 3) {
-                    return new Match(new Vector2i(x, y0), new Vector2i(x, y1 - 1));
+        // Hand each cell a piece of the variant the engine placed there.
+        for (int x = 0; x < pieceCount.x; ++x) {
+            for (int y = 0; y < pieceCount.y; ++y) {
+                int variant = engine.get(x, y);
+                if (shuffleNext[variant] < shuffleEnd[variant]) {
+                    int piece = shufflePieces[shuffleNext[variant]++];
+                    pieceStore.place(piece, x, y);
+                    setPieceAt(x, y, piece);
+                } else {
+                    setPieceAt(x, y, PieceStore.NONE);
                 }
             }
         }
 
-        return null;
-    }
-
-    private void updateFallingState(float dt) {
-        boolean falling = false;
-        Vector2i moveTarget = new Vector2i(0);
-        for(int y = pieceCount.y - 1; y > 0; --y) {
-            for(int x = 0; x < pieceCount.x; ++x) {
-                if(pieces[x][y] == null) {
-                    // If empty, replace by piece above.
-                    moveTarget.x = x;
-                    moveTarget.y = y;
-                    pieces[x][y] = pieces[x][y-1];
-                    pieces[x][y-1] = null;
-                    if(pieces[x][y] != null) {
-                        pieces[x][y].moveToBoardPosition(moveTarget, Piece.MovementType.Fall);
-                        falling = true;
+        // Only if the engine had to recolour, leftover pieces change their variant.
+        int leftover = 0;
+        for (int x = 0; x < pieceCount.x; ++x) {
+            for (int y = 0; y < pieceCount.y; ++y) {
+                if (getPieceAt(x, y) == PieceStore.NONE) {
+                    while (shuffleNext[leftover] == shuffleEnd[leftover]) {
+                        ++leftover;
                     }
+                    int piece = shufflePieces[shuffleNext[leftover]++];
+                    pieceStore.setVariant(piece, engine.get(x, y));
+                    pieceStore.place(piece, x, y);
+                    setPieceAt(x, y, piece);
                 }
             }
         }
-
-        if(!falling && !piecesMoving()) {
-            refill();
-        }
     }
 
-    private void handleMatch(Match match) {
-        for(int y = match.getStart().y; y <= match.getEnd().y; ++y) {
-            for(int x = match.getStart().x; x <= match.getEnd().x; ++x) {
-                explosionCoordinates.add(new Vector2i(x, y));
-                pieces[x][y].explode();
-            }
-        }
-        state = State.Exploding;
+    @Override
+    public void onSettle(int depth) {
+        state = State.Idle;
     }
 
     @Override
     public void update(float dt) {
 
-        // Update pieces.
-        for (Piece[] row : pieces) {
-            for (Piece piece : row) {
-                if (piece != null) {
-                    piece.update(dt);
-                }
-            }
+        // Buffered moves start before the pieces update, like moves made between two updates,
+        // so a replay that swaps between updates reproduces the same timing.
+        if (state == State.Idle) {
+            updateIdleState(dt);
         }
 
-        switch(state) {
-            case Idle:
-                updateIdleState(dt);
-            break;
-
-            case Falling:
-                updateFallingState(dt);
-            break;
+        // Update pieces.
+        pieceStore.update(dt);
 
+        switch(state) {
             case Swapping:
-                if(!piecesMoving()) {
+            case Falling:
+                if(pieceStore.getMovingCount() == 0) {
                     state = State.Checking;
                 }
             break;
 
-            case Refilling:
-                if(!piecesMoving()) {
-                    state = State.Checking;
-                }
+            case Bouncing:
+                updateBounceState(dt);
             break;
 
             case Exploding:
@@ -284,83 +376,174 @@ public class Board extends SceneNode implements Disposable {
             break;
             default: break;
         }
+        ++ticks;
     }
 
     private void updateIdleState(float dt) {
-    }
-
-    private boolean piecesMoving() {
-        for (Piece[] row : pieces) {
-            for(Piece piece : row) {
-                if (piece != null && !piece.isIdle()) {
-                    return true;
-                }
-            }
+        if (hasPendingMove) {
+            hasPendingMove = false;
+            swap(pendingFirst, pendingSecond);
         }
-        return false;
     }
 
     private void updateCheckState(float dt) {
 
-        // Check for matches.
-        Match match = findMatch();
-        if(match == null) {
-            // No more matches, so resume to idle state.
-            state = State.Idle;
+        // Resolve one cascade step, the engine reports cleared cells or that the board settled.
+        engine.step();
+    }
+
+    private void updateExplodeState(float dt) {
+
+        // Wait for the last explosion, the store counts them down as they finish.
+        if(pieceStore.getExplodingCount() == 0) {
+            for(int i = 0; i < explodingPieceCount; ++i) {
+                pieceStore.free(explodingPieces[i]);
+            }
+            explodingPieceCount = 0;
+            startFalling();
         }
+    }
 
-        // We found a match, handle it and check for remaining matches in the next iteration.
-        else {
-            /* Util.log("Found match from {" +
-                    match.getStart().x + ", " + match.getStart().y + "} to {" +
-                    match.getEnd().x + ", " + match.getEnd().y + "}"); */
-            handleMatch(match);
+    // Drops every piece of the affected columns straight to its final cell in a single move.
+    // New pieces start stacked right above the board, so each column falls as one block.
+    private void startFalling() {
+        long columns = fallingColumns;
+        while(columns != 0) {
+            int x = Long.numberOfTrailingZeros(columns);
+            columns &= columns - 1;
+
+            for(int y = 0; y < pieceCount.y; ++y) {
+                int piece = getPieceAt(x, y);
+                if(piece == PieceStore.NONE) {
+                    piece = pieceStore.obtain(x, y - spawnCounts[x], spawnVariants[x + y * pieceCount.x]);
+                    setPieceAt(x, y, piece);
+                }
+                pieceStore.moveTo(piece, x, y, PieceStore.MovementType.Fall);
+            }
+            spawnCounts[x] = 0;
         }
+        fallingColumns = 0L;
+        state = State.Falling;
     }
 
-    private void updateExplodeState(float dt) {
-        boolean done = true;
-        for(Vector2i pos : explosionCoordinates) {
-            if (pieces[pos.x][pos.y] != null && !pieces[pos.x][pos.y].hasAnimationFinished()) {
-                done = false;
+    // Grid and resting pieces, drawn once into the game's cached layer.
+    public void drawStatic(SpriteBatch batch) {
+        drawGrid(batch);
+        pieceStore.drawStatic(batch, null);
+        pieceStore.clearDirtyCells();
+    }
+
+    public boolean hasDirtyCells() {
+        return pieceStore.hasDirtyCells();
+    }
+
+    /**
+     * Redraws the cells of the cached layer whose pieces started or stopped resting, on top of
+     * the layer as it is. Patches of the background, then of the grid, then the pieces, so the
+     * batch switches textures twice no matter how many cells changed.
+     */
+    public void drawDirtyCells(SpriteBatch batch) {
+        final long[] cells = pieceStore.getDirtyCells();
+        final boolean fullGrid = pieceCount.x == GRID_ART_CELLS && pieceCount.y == GRID_ART_CELLS;
+        for (int pass = 0; pass < 2; ++pass) {
+            for (int y = 0; y < pieceCount.y; ++y) {
+                long bits = cells[y];
+                while (bits != 0) {
+                    final int x = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    final float left = offset.x + x * cellSize;
+                    final float top = offset.y + y * cellSize;
+                    if (pass == 0) {
+                        // The background is drawn flipped over the whole screen.
+                        batch.draw(backdropTexture, left, top, cellSize, cellSize,
+                                left / Game.RESOLUTION.x, top / Game.RESOLUTION.y,
+                                (left + cellSize) / Game.RESOLUTION.x, (top + cellSize) / Game.RESOLUTION.y);
+                    } else if (fullGrid) {
+                        batch.draw(gridTexture, left, top, cellSize, cellSize,
+                                (float) x / pieceCount.x, 1.0f - (float) y / pieceCount.y,
+                                (float) (x + 1) / pieceCount.x, 1.0f - (float) (y + 1) / pieceCount.y);
+                    } else {
+                        batch.draw(gridCell, left, top, cellSize, cellSize);
+                    }
+                }
             }
         }
+        pieceStore.drawStatic(batch, cells);
+        pieceStore.clearDirtyCells();
+    }
 
-        if(done) {
-            for (Vector2i pos : explosionCoordinates) {
-                pieces[pos.x][pos.y] = null;
+    private void drawGrid(SpriteBatch batch) {
+        if (pieceCount.x == GRID_ART_CELLS && pieceCount.y == GRID_ART_CELLS) {
+            batch.draw(gridTexture, offset.x, offset.y, sizeInPixels.x, sizeInPixels.y);
+        } else {
+            for (int y = 0; y < pieceCount.y; ++y) {
+                for (int x = 0; x < pieceCount.x; ++x) {
+                    batch.draw(gridCell, offset.x + x * cellSize, offset.y + y * cellSize, cellSize, cellSize);
+                }
             }
-            explosionCoordinates.clear();
-            state = State.Falling;
         }
     }
 
+    // See PieceStore.setInterpolation().
+    public void setInterpolation(float alpha) {
+        pieceStore.setInterpolation(alpha);
+    }
+
+    // Pieces that are not part of the cached layer, all from the character atlas.
     @Override
     public void draw(SpriteBatch batch) {
+        pieceStore.draw(batch);
+    }
 
-        // Draw background.
-        batch.draw(backgroundTexture, offset.x, offset.y, sizeInPixels.x, sizeInPixels.y);
+    // Records every swap that reaches the engine from now on, or stops recording if null.
+    public void setMoveLog(MoveLog moveLog) {
+        this.moveLog = moveLog;
+    }
 
-        // Draw pieces.
-        for (Piece[] row : pieces) {
-            for (Piece piece : row) {
-                if (piece != null) {
-                    piece.draw(batch);
-                }
-            }
-        }
+    // Number of update() calls so far.
+    public long getTicks() {
+        return ticks;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Nothing moves or waits to happen until the next input or blink.
+    public boolean isSettled() {
+        return state == State.Idle && !hasPendingMove && pieceStore.getAnimatedCount() == 0 && !pieceStore.hasDirtyCells();
     }
 
     public Vector2i getPieceCount() {
         return pieceCount;
     }
 
-    public Piece getPieceAt(int x, int y) {
-        return pieces[x][y];
+    // Edge length of a cell in pixels.
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public BoardEngine getEngine() {
+        return engine;
+    }
+
+    // Valid move to suggest to the player, encoded as by MoveGenerator.
+    public int getHint() {
+        return state == State.Idle ? engine.findHint() : MoveGenerator.NONE;
+    }
+
+    // Slot of the piece in the given cell, or PieceStore.NONE.
+    public int getPieceAt(int x, int y) {
+        return pieces[x + y * pieceCount.x];
+    }
+
+    public void setPieceAt(int x, int y, int piece) {
+        pieces[x + y * pieceCount.x] = piece;
     }
 
-    public void setPieceAt(int x, int y, Piece piece) {
-        pieces[x][y] = piece;
+    public PieceStore getPieceStore() {
+        return pieceStore;
     }
 
     public Vector2i getOffset() {
@@ -377,6 +560,6 @@ public class Board extends SceneNode implements Disposable {
 
     @Override
     public void dispose() {
-        backgroundTexture.dispose();
+        // The textures belong to the game's asset manager.
     }
 }
@@ -0,0 +1,289 @@
+package com.houseforest.matchthree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rules of the game without any rendering: swap validation, cascade resolution, refill
+ * and scoring on top of a {@link BitBoard}. Runs without libGDX, so it can be used for
+ * server-side validation and bot simulations. Views follow along through a {@link Listener}.
+ */
+public class BoardEngine {
+
+    public static final int POINTS_PER_PIECE = 10;
+
+    // Valid moves a freshly generated board offers at least, if attainable.
+    public static final int MIN_INITIAL_MOVES = 3;
+
+    /**
+     * Receives every change the engine makes, in the order it makes them.
+     */
+    public interface Listener {
+
+        void onSwap(int x1, int y1, int x2, int y2);
+
+        // All clusters of one cascade step, cells is the row-major union of their cells.
+        void onClear(List<MatchCluster> clusters, long[] cells, int depth, int points);
+
+        void onFall(int x, int fromY, int toY);
+
+        void onSpawn(int x, int y, int variant);
+
+        // The board had no valid move left and its variants were rearranged in place.
+        void onShuffle();
+
+        // No matches left, depth is the number of cascade steps since the last swap.
+        void onSettle(int depth);
+    }
+
+    private final BitBoard board;
+    private final MatchFinder matchFinder;
+    private final MoveGenerator moveGenerator;
+    private final BoardGenerator generator;
+    private final long seed;
+    private final RandomSource random;
+    private Listener listener;
+
+    private final ArrayList<MatchCluster> clusters;
+    private final long[] matchedCells;
+    private final long[] emptyCells;
+
+    private int score;
+    private int moves;
+    private int depth;
+    private int shuffles;
+
+    /**
+     * @param seed Drives every piece the engine generates. Replaying the same moves on an
+     *             engine with the same seed reproduces the same boards.
+     */
+    public BoardEngine(int width, int height, int variantCount, long seed) {
+        this.board = new BitBoard(width, height, variantCount);
+        this.matchFinder = new MatchFinder(board);
+        this.moveGenerator = new MoveGenerator(board);
+        this.seed = seed;
+        this.random = new RandomSource(seed);
+        this.clusters = new ArrayList<>();
+        this.matchedCells = new long[height];
+        this.emptyCells = new long[height];
+        this.generator = new BoardGenerator(board, moveGenerator, random);
+
+        // Start without matches, so the first frame is already playable.
+        generator.generate(MIN_INITIAL_MOVES);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    public int getWidth() {
+        return board.getWidth();
+    }
+
+    public int getHeight() {
+        return board.getHeight();
+    }
+
+    public MoveGenerator getMoveGenerator() {
+        return moveGenerator;
+    }
+
+    // Encoded move for a hint, see MoveGenerator, or MoveGenerator.NONE if the board is dead.
+    public int findHint() {
+        return moveGenerator.findHint();
+    }
+
+    public boolean hasMove() {
+        return moveGenerator.hasMove();
+    }
+
+    public int get(int x, int y) {
+        return board.get(x, y);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getMoves() {
+        return moves;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Number of times the board ran out of moves and was shuffled.
+    public int getShuffles() {
+        return shuffles;
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < board.getWidth() && y < board.getHeight();
+    }
+
+    public static boolean areAdjacent(int x1, int y1, int x2, int y2) {
+        return Math.abs(x1 - x2) + Math.abs(y1 - y2) == 1;
+    }
+
+    /**
+     * Checks whether swapping two cells creates a run, looking only at the lines through them.
+     */
+    public boolean isValidSwap(int x1, int y1, int x2, int y2) {
+        if (!isInside(x1, y1) || !isInside(x2, y2) || !areAdjacent(x1, y1, x2, y2)) {
+            return false;
+        }
+
+        final int first = board.get(x1, y1);
+        final int second = board.get(x2, y2);
+        if (first == BitBoard.EMPTY || second == BitBoard.EMPTY || first == second) {
+            return false;
+        }
+
+        return formsRun(x2, y2, first, x1, y1) || formsRun(x1, y1, second, x2, y2);
+    }
+
+    // Whether placing variant at (x, y) creates a run, given that (fromX, fromY) no longer holds it.
+    private boolean formsRun(int x, int y, int variant, int fromX, int fromY) {
+        long row = board.getVariantRow(variant, y) | (1L << x);
+        if (fromY == y) {
+            row &= ~(1L << fromX);
+        }
+        if (BitBoard.hasTripleAround(row, x)) {
+            return true;
+        }
+
+        long column = board.getVariantColumn(variant, x) | (1L << y);
+        if (fromX == x) {
+            column &= ~(1L << fromY);
+        }
+        return BitBoard.hasTripleAround(column, y);
+    }
+
+    /**
+     * Commits a swap without validation. The caller resolves the consequences.
+     */
+    public void swap(int x1, int y1, int x2, int y2) {
+        board.swap(x1, y1, x2, y2);
+        ++moves;
+        depth = 0;
+        if (listener != null) {
+            listener.onSwap(x1, y1, x2, y2);
+        }
+    }
+
+    /**
+     * Validates and commits a swap and resolves the whole cascade synchronously.
+     * @return Whether the swap was valid.
+     */
+    public boolean trySwap(int x1, int y1, int x2, int y2) {
+        if (!isValidSwap(x1, y1, x2, y2)) {
+            return false;
+        }
+        swap(x1, y1, x2, y2);
+        resolve();
+        return true;
+    }
+
+    /**
+     * Resolves cascade steps until the board is stable.
+     * @return Number of cascade steps.
+     */
+    public int resolve() {
+        while (step()) {
+            // Keep cascading.
+        }
+        return depth;
+    }
+
+    /**
+     * Runs a single cascade step: clear all matches, let pieces fall and refill.
+     * Matches present before the first move are cleared without awarding points.
+     * Once the board has settled without a valid move left, it is shuffled.
+     * @return Whether anything matched, false once the board has settled.
+     */
+    public boolean step() {
+        if (!matchFinder.find(clusters, matchedCells)) {
+            if (!moveGenerator.hasMove()) {
+                shuffle();
+            }
+            if (listener != null) {
+                listener.onSettle(depth);
+            }
+            return false;
+        }
+
+        ++depth;
+        int points = 0;
+        if (moves > 0) {
+            for (int i = 0; i < clusters.size(); ++i) {
+                points += clusters.get(i).getSize() * POINTS_PER_PIECE * depth;
+            }
+            score += points;
+        }
+
+        board.clearCells(matchedCells);
+        if (listener != null) {
+            listener.onClear(clusters, matchedCells, depth, points);
+            reportFalls();
+        }
+
+        board.applyGravity();
+
+        for (int y = 0; y < board.getHeight(); ++y) {
+            emptyCells[y] = ~board.getOccupiedRow(y) & board.getRowMask();
+        }
+        board.refill(random);
+        if (listener != null) {
+            reportSpawns();
+        }
+        return true;
+    }
+
+    /**
+     * Rearranges the pieces so there is no match and at least one valid move.
+     */
+    public void shuffle() {
+        generator.shuffle();
+        ++shuffles;
+        if (listener != null) {
+            listener.onShuffle();
+        }
+    }
+
+    // Reports where pieces end up before the board compacts its columns.
+    private void reportFalls() {
+        final int height = board.getHeight();
+        for (int x = 0; x < board.getWidth(); ++x) {
+            long remaining = board.getOccupiedColumn(x);
+            int dest = height - 1;
+            while (remaining != 0) {
+                final int y = 63 - Long.numberOfLeadingZeros(remaining);
+                remaining &= ~(1L << y);
+                if (y != dest) {
+                    listener.onFall(x, y, dest);
+                }
+                --dest;
+            }
+        }
+    }
+
+    private void reportSpawns() {
+        for (int y = 0; y < board.getHeight(); ++y) {
+            long bits = emptyCells[y];
+            while (bits != 0) {
+                final int x = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                listener.onSpawn(x, y, board.get(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.houseforest.matchthree;
+
+/**
+ * Fills or rearranges the variants on a {@link BitBoard} so that it has no runs and at
+ * least one valid move, in bounded time.
+ *
+ * Cells are filled one by one in row-major order and a variant is only placed where it
+ * does not complete a run with the cells placed so far, so a finished pass never contains
+ * a match. Only the move guarantee needs retries, and those are capped.
+ */
+public class BoardGenerator {
+
+    // Random permutations tried before falling back to recolouring.
+    public static final int MAX_SHUFFLE_ATTEMPTS = 8;
+
+    // Fresh boards tried to reach the requested number of moves.
+    public static final int MAX_GENERATE_ATTEMPTS = 8;
+
+    private final BitBoard board;
+    private final MoveGenerator moveGenerator;
+    private final RandomSource random;
+
+    // Variants still to be placed by a shuffle, unordered.
+    private final int[] pool;
+    private final int[] original;
+
+    public BoardGenerator(BitBoard board, MoveGenerator moveGenerator, RandomSource random) {
+        this.board = board;
+        this.moveGenerator = moveGenerator;
+        this.random = random;
+        this.pool = new int[board.getWidth() * board.getHeight()];
+        this.original = new int[board.getWidth() * board.getHeight()];
+    }
+
+    /**
+     * Fills the whole board with fresh variants without any run and with at least one, and
+     * if possible minMoves, valid moves. Every attempt is a single constrained pass, the best
+     * attempt is kept once the attempt limit is reached.
+     * @return Number of valid moves on the generated board.
+     */
+    public int generate(int minMoves) {
+        final int width = board.getWidth();
+        final int cells = width * board.getHeight();
+
+        int bestMoves = -1;
+        for (int attempt = 0; attempt < MAX_GENERATE_ATTEMPTS; ++attempt) {
+            recolor();
+            final int moves = moveGenerator.count();
+            if (moves >= minMoves) {
+                return moves;
+            }
+            if (moves > bestMoves) {
+                bestMoves = moves;
+                for (int i = 0; i < cells; ++i) {
+                    original[i] = board.get(i % width, i / width);
+                }
+            }
+        }
+
+        // Restore the best attempt, it is free of runs by construction.
+        for (int i = 0; i < cells; ++i) {
+            board.set(i % width, i / width, original[i]);
+        }
+        board.clearDirty();
+        return bestMoves;
+    }
+
+    /**
+     * Permutes the variants already on the board. If no permutation within the attempt
+     * limit works out, some cells change their variant instead (see {@link #recolor()}).
+     * @return Whether the multiset of variants was preserved.
+     */
+    public boolean shuffle() {
+        final int width = board.getWidth();
+        final int cells = width * board.getHeight();
+        for (int i = 0; i < cells; ++i) {
+            original[i] = board.get(i % width, i / width);
+        }
+
+        for (int attempt = 0; attempt < MAX_SHUFFLE_ATTEMPTS; ++attempt) {
+            if (permute(cells) && moveGenerator.hasMove()) {
+                board.clearDirty();
+                return true;
+            }
+        }
+
+        recolor();
+        return false;
+    }
+
+    // Places the original variants in random order, never completing a run.
+    private boolean permute(int cells) {
+        final int width = board.getWidth();
+        System.arraycopy(original, 0, pool, 0, cells);
+        board.clearAll();
+
+        int remaining = cells;
+        for (int i = 0; i < cells; ++i) {
+            final int x = i % width;
+            final int y = i / width;
+
+            // Start at a random pool entry and take the first one that fits.
+            final int start = random.nextInt(remaining);
+            int chosen = -1;
+            for (int k = 0; k < remaining; ++k) {
+                final int index = (start + k) % remaining;
+                if (pool[index] != BitBoard.EMPTY && !completesRun(x, y, pool[index])) {
+                    chosen = index;
+                    break;
+                }
+            }
+            if (chosen < 0) {
+                return false;
+            }
+
+            board.set(x, y, pool[chosen]);
+            pool[chosen] = pool[--remaining];
+        }
+        return true;
+    }
+
+    /**
+     * Assigns fresh variants: a planted move in the top row, every other cell any variant
+     * that does not complete a run. Always succeeds with three or more variants: a cell
+     * then has at most two neighbouring pairs that can forbid a variant. The move is planted
+     * in the top row because there is no pair above it, in a lower row the cell left of the
+     * planted move could face a third one.
+     */
+    public void recolor() {
+        final int variantCount = board.getVariantCount();
+        board.clearAll();
+
+        if (variantCount >= 2) {
+            // a a b     Swapping the b with the a below it completes a run of a.
+            // . . a
+            final int a = random.nextInt(variantCount);
+            final int b = (a + 1 + random.nextInt(variantCount - 1)) % variantCount;
+            final int x = random.nextInt(board.getWidth() - 2);
+            board.set(x, 0, a);
+            board.set(x + 1, 0, a);
+            board.set(x + 2, 0, b);
+            board.set(x + 2, 1, a);
+        }
+
+        final int width = board.getWidth();
+        for (int y = 0; y < board.getHeight(); ++y) {
+            for (int x = 0; x < width; ++x) {
+                if (!board.isEmpty(x, y)) {
+                    continue;
+                }
+
+                final int start = random.nextInt(variantCount);
+                int variant = start;
+                for (int k = 0; k < variantCount; ++k) {
+                    variant = (start + k) % variantCount;
+                    if (!completesRun(x, y, variant)) {
+                        break;
+                    }
+                }
+                board.set(x, y, variant);
+            }
+        }
+
+        if (variantCount >= 3) {
+            board.clearDirty();
+        }
+    }
+
+    // Whether placing variant at the empty cell (x, y) completes a run with its placed neighbours.
+    private boolean completesRun(int x, int y, int variant) {
+        return BitBoard.hasTripleAround(board.getVariantRow(variant, y) | (1L << x), x)
+                || BitBoard.hasTripleAround(board.getVariantColumn(variant, x) | (1L << y), y);
+    }
+}
@@ -6,71 +6,199 @@ import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputAdapter;
 import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.TextureAtlasLoader;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-
-import java.util.HashMap;
+import com.badlogic.gdx.utils.TimeUtils;
+import com.badlogic.gdx.utils.Timer;
 
 public class Game implements ApplicationListener, InputProcessor {
 
     public static final Vector2i RESOLUTION = new Vector2i(1080, 640);
 
+    // Default board, the original 8x8 layout with five characters.
+    public static final int DEFAULT_BOARD_WIDTH = 8;
+    public static final int DEFAULT_BOARD_HEIGHT = 8;
+    public static final int DEFAULT_VARIANT_COUNT = 5;
+
+    // Atlas name suffix of each piece variant's art, in variant order.
+    private static final String[] VARIANT_ART = {
+            "Line1", "Line2", "Line3", "Line4", "Line5",
+            "NoLine1", "NoLine2", "NoLine3", "NoLine4", "NoLine5"
+    };
+
     public enum TextureAtlasName {
         Characters,
         UI,
         Numbers
     }
 
+    // Atlas files indexed by TextureAtlasName.
+    private static final String[] ATLAS_FILES = {
+            "characters/characters.pack",
+            "ui/ui.pack",
+            "numbers/numbers.pack"
+    };
+
+    public static final String BACKGROUND_TEXTURE = "general/bg_trail.jpg";
+    public static final String GRID_TEXTURE = "general/grid.png";
+
+    // Game logic advances in steps of this many seconds, independent of the frame rate, so a
+    // cascade takes the same number of updates at 30, 60 or 144 Hz.
+    public static final float UPDATE_STEP = 1.0f / 60.0f;
+
+    // Longer frames, e.g. after a stall, are cut short instead of catching up all at once.
+    private static final float MAX_FRAME_TIME = 0.25f;
+
+    // Time the asset manager may spend per loading frame, in milliseconds.
+    private static final int LOADING_FRAME_BUDGET = 10;
+
     public enum State {
+        Loading,
         Active,
         Menu
     }
 
 	private SpriteBatch batch;
 	private Board board;
-    private HashMap<TextureAtlasName, TextureAtlas> textureAtlases;
+    private AssetManager assets;
     private OrthographicCamera camera;
     private State state;
 
+    // Draws the progress bar while loading, disposed once the game is active.
+    private ShapeRenderer loadingRenderer;
+
+    // Startup timing, in nanoseconds.
+    private long createTime;
+    private boolean firstFrameLogged;
+
+    // Background, board grid and resting pieces, drawn once into an offscreen layer. Only cells
+    // whose pieces start or stop moving, exploding or blinking are redrawn into it, so a frame
+    // draws this layer and the few animated pieces on top. The layer is redrawn completely after
+    // the GL context was lost, e.g. when an Android app resumes.
+    // The layer has the back buffer's size, so it is copied to the screen pixel for pixel. It is
+    // null while the window has no size, or if the driver cannot render to it, and the static
+    // content is then drawn directly every frame.
+    private FrameBuffer staticLayer;
+    private boolean staticLayerDirty;
+
+    // Draw calls of the last frame, and its texture bindings while GLProfiler is enabled.
+    private int frameRenderCalls;
+    private int frameTextureBindings;
+
     private Texture backgroundTexture;
-    private AnimationManager<String> animationManager;
+    private AnimationTable animationTable;
 
-	@Override
-	public void create () {
-        loadTextures();
+    // Pointer events from the input callbacks, applied at the start of the next update.
+    private InputQueue inputQueue;
 
-        animationManager = new AnimationManager<>();
-        loadAnimations();
+    // Once the board settles, frames are only rendered on request: for input, for the next
+    // blink and after the context was restored. Rendering is continuous again while anything
+    // moves, so an idle game does not draw the same frame 60 times a second.
+    private boolean sleeping;
+    private Timer.Task wakeUp;
+
+    // Frame time not yet consumed by logic updates, less than UPDATE_STEP after each frame.
+    private float accumulator;
+
+    // Every swap of the session, or the log being replayed instead of taking input.
+    private MoveLog moveLog;
+    private MoveLog replayLog;
+    private ReplayPlayer replayPlayer;
 
-		batch = new SpriteBatch();
-        board = new Board(this);
+    private final int boardWidth;
+    private final int boardHeight;
+    private final int variantCount;
+
+    public Game() {
+        this(DEFAULT_BOARD_WIDTH, DEFAULT_BOARD_HEIGHT, DEFAULT_VARIANT_COUNT);
+    }
+
+    /**
+     * @param boardWidth Between 3 and {@link BitBoard#MAX_SIZE}, as is boardHeight.
+     * @param variantCount Between 3 and {@link #getMaxVariantCount()}, one per character art.
+     * @throws IllegalArgumentException Right away, instead of once the assets have loaded.
+     */
+    public Game(int boardWidth, int boardHeight, int variantCount) {
+
+        // Same limits as BitBoard and Board.
+        if (boardWidth < 3 || boardWidth > BitBoard.MAX_SIZE || boardHeight < 3 || boardHeight > BitBoard.MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be within [3, " + BitBoard.MAX_SIZE + "]: " + boardWidth + "x" + boardHeight);
+        }
+        if (variantCount < 3 || variantCount > getMaxVariantCount()) {
+            throw new IllegalArgumentException("Variant count must be within [3, " + getMaxVariantCount() + "]: " + variantCount);
+        }
+
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.variantCount = variantCount;
+    }
+
+	@Override
+	public void create () {
+        createTime = TimeUtils.nanoTime();
+
+        // Decoding happens in the background, render() shows progress until everything is ready.
+        queueAssets();
+
+		// Room for every piece plus the static layer, so large boards do not flush mid-frame.
+        final int cells = replayLog != null ? replayLog.getWidth() * replayLog.getHeight() : boardWidth * boardHeight;
+		batch = new SpriteBatch(Math.min(Math.max(1000, cells + 1), 8191));
+        loadingRenderer = new ShapeRenderer();
+        inputQueue = new InputQueue(64);
+        wakeUp = new Timer.Task() {
+            @Override
+            public void run() {
+                Gdx.graphics.requestRendering();
+            }
+        };
 
         Gdx.input.setInputProcessor(this);
 
         camera = new OrthographicCamera(RESOLUTION.x, RESOLUTION.y);
         camera.setToOrtho(true, RESOLUTION.x, RESOLUTION.y);
 
-        state = State.Active;
+        state = State.Loading;
 	}
 
-    private void loadTextures() {
-        // Texture atlases.
-        textureAtlases = new HashMap<>(TextureAtlasName.values().length);
-        textureAtlases.put(TextureAtlasName.Characters, new TextureAtlas(Gdx.files.internal("characters/characters.pack"), true));
-        textureAtlases.put(TextureAtlasName.UI, new TextureAtlas(Gdx.files.internal("ui/ui.pack"), true));
-        textureAtlases.put(TextureAtlasName.Numbers, new TextureAtlas(Gdx.files.internal("numbers/numbers.pack"), true));
+    /**
+     * Loads textures and piece animations synchronously. Needs no sprite batch, so headless
+     * harnesses such as the benchmarks can prepare a game without calling create().
+     */
+    public void loadAssets() {
+        queueAssets();
+        assets.finishLoading();
+        onAssetsLoaded();
+    }
 
-        // Individual textures.
-        backgroundTexture = new Texture(Gdx.files.internal("general/bg_trail.jpg"));
+    // Only what the first playable frame needs, the UI and number atlases load on first use.
+    private void queueAssets() {
+        assets = new AssetManager();
+        assets.load(ATLAS_FILES[TextureAtlasName.Characters.ordinal()], TextureAtlas.class, new TextureAtlasLoader.TextureAtlasParameter(true));
+        assets.load(BACKGROUND_TEXTURE, Texture.class);
+        assets.load(GRID_TEXTURE, Texture.class);
+    }
+
+    private void onAssetsLoaded() {
+        backgroundTexture = assets.get(BACKGROUND_TEXTURE, Texture.class);
+
+        animationTable = new AnimationTable(VARIANT_ART.length);
+        loadAnimations();
     }
 
     private void loadAnimations() {
@@ -78,7 +206,8 @@ public class Game implements ApplicationListener, InputProcessor {
         assert atlas != null;
 
         // Load board piece animations.
-        for(int variantIndex = 1; variantIndex <= Piece.Variant.values().length; ++variantIndex) {
+        for(int variant = 0; variant < VARIANT_ART.length; ++variant) {
+            String art = VARIANT_ART[variant];
 
             Array<TextureRegion> keyframes;
 
@@ -86,9 +215,10 @@ public class Game implements ApplicationListener, InputProcessor {
             {
                 keyframes = new Array<>(1);
                 keyframes.setSize(1);
-                keyframes.set(0, atlas.findRegion("CharactersBright_Line" + variantIndex));
-                animationManager.add(
-                        "piece_idle_" + variantIndex,
+                keyframes.set(0, atlas.findRegion("CharactersBright_" + art));
+                animationTable.set(
+                        variant,
+                        AnimationKind.Idle,
                         new Animation<>(1.0f, keyframes, Animation.PlayMode.LOOP)
                 );
             }
@@ -97,9 +227,10 @@ public class Game implements ApplicationListener, InputProcessor {
             {
                 keyframes = new Array<>(1);
                 keyframes.setSize(1);
-                keyframes.set(0, atlas.findRegion("BlinkBright_Line" + variantIndex));
-                animationManager.add(
-                        "piece_blink_" + variantIndex,
+                keyframes.set(0, atlas.findRegion("BlinkBright_" + art));
+                animationTable.set(
+                        variant,
+                        AnimationKind.Blink,
                         new Animation<>(0.2f, keyframes, Animation.PlayMode.NORMAL)
                 );
             }
@@ -108,47 +239,240 @@ public class Game implements ApplicationListener, InputProcessor {
             {
                 keyframes = new Array<>(3);
                 keyframes.setSize(5);
-                keyframes.set(0, atlas.findRegion("CharactersGray_Line"  + variantIndex));
-                keyframes.set(1, atlas.findRegion("CharactersBlack_Line" + variantIndex));
-                keyframes.set(2, atlas.findRegion("CharactersGray_Line"  + variantIndex));
-                keyframes.set(3, atlas.findRegion("CharactersBlack_Line" + variantIndex));
-                keyframes.set(4, atlas.findRegion("CharactersGray_Line"  + variantIndex));
-                animationManager.add(
-                        "piece_explode_" + variantIndex,
+                keyframes.set(0, atlas.findRegion("CharactersGray_"  + art));
+                keyframes.set(1, atlas.findRegion("CharactersBlack_" + art));
+                keyframes.set(2, atlas.findRegion("CharactersGray_"  + art));
+                keyframes.set(3, atlas.findRegion("CharactersBlack_" + art));
+                keyframes.set(4, atlas.findRegion("CharactersGray_"  + art));
+                animationTable.set(
+                        variant,
+                        AnimationKind.Explode,
                         new Animation<>(0.12f, keyframes, Animation.PlayMode.NORMAL)
                 );
             }
         }
-
-        Piece.cacheAnimations(this);
     }
 
     @Override
     public void resize(int width, int height) {
 
+        // Nothing to draw into the layer before the assets are loaded.
+        if (state == State.Active) {
+            createStaticLayer();
+            Gdx.graphics.requestRendering();
+        }
     }
 
     private void update(float dt) {
+
+        // The first frame after sleeping spans the whole pause. Only the blink timers may count
+        // it, animations started by the input that woke the game begin with the next frame.
+        // Board updates, the clock of the move log, stand still while the game sleeps.
+        if (sleeping) {
+            board.getPieceStore().update(dt);
+            dt = 0.0f;
+        }
+
+        processInput();
         camera.update();
-        board.update(dt);
+
+        accumulator += Math.min(dt, MAX_FRAME_TIME);
+        while (accumulator >= UPDATE_STEP) {
+            if (replayPlayer != null) {
+                replayPlayer.update();
+            }
+            board.update(UPDATE_STEP);
+            accumulator -= UPDATE_STEP;
+        }
+
+        // Pieces are drawn between the last two updates, by the time left over.
+        board.setInterpolation(accumulator / UPDATE_STEP);
+    }
+
+    private void processInput() {
+        while (inputQueue.poll()) {
+
+            // Only allow player moves in active state, and not while replaying.
+            if (state != State.Active || replayPlayer != null) {
+                continue;
+            }
+
+            if (inputQueue.getType() == InputQueue.TOUCH) {
+                board.onTouch(inputQueue.getX(), inputQueue.getY());
+            } else {
+                board.onDrag(inputQueue.getX(), inputQueue.getY());
+            }
+        }
+    }
+
+    private void updateLoading() {
+        if (!assets.update(LOADING_FRAME_BUDGET)) {
+            return;
+        }
+
+        onAssetsLoaded();
+        if (replayLog != null) {
+            board = new Board(this, replayLog.getWidth(), replayLog.getHeight(), replayLog.getVariantCount(), replayLog.getSeed());
+            replayPlayer = new ReplayPlayer(board, replayLog);
+        } else {
+            final long seed = TimeUtils.millis();
+            board = new Board(this, boardWidth, boardHeight, variantCount, seed);
+            moveLog = new MoveLog(boardWidth, boardHeight, variantCount, seed);
+            board.setMoveLog(moveLog);
+        }
+        createStaticLayer();
+
+        loadingRenderer.dispose();
+        loadingRenderer = null;
+        state = State.Active;
+        Util.log("Assets loaded after " + TimeUtils.nanosToMillis(TimeUtils.timeSinceNanos(createTime)) + " ms");
+    }
+
+    // Progress bar, the only thing drawn before the textures are there.
+    private void renderLoading() {
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        final float width = RESOLUTION.x * 0.5f;
+        final float height = 8.0f;
+        final float x = (RESOLUTION.x - width) / 2;
+        final float y = (RESOLUTION.y - height) / 2;
+
+        camera.update();
+        loadingRenderer.setProjectionMatrix(camera.combined);
+        loadingRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        loadingRenderer.setColor(Color.DARK_GRAY);
+        loadingRenderer.rect(x, y, width, height);
+        loadingRenderer.setColor(Color.WHITE);
+        loadingRenderer.rect(x, y, width * assets.getProgress(), height);
+        loadingRenderer.end();
     }
 
     @Override
 	public void render () {
+        if (!firstFrameLogged) {
+            firstFrameLogged = true;
+            Util.log("First frame after " + TimeUtils.nanosToMillis(TimeUtils.timeSinceNanos(createTime)) + " ms");
+        }
+
+        if (state == State.Loading) {
+            processInput();
+            renderLoading();
+            updateLoading();
+            return;
+        }
+
         update(Gdx.graphics.getDeltaTime());
 
+        int layerRenderCalls = 0;
+        if (staticLayer != null) {
+            if (staticLayerDirty) {
+                drawStaticLayer();
+                layerRenderCalls = batch.renderCalls;
+            } else if (board.hasDirtyCells()) {
+                updateStaticLayer();
+                layerRenderCalls = batch.renderCalls;
+            }
+        }
+
         Gdx.gl.glClearColor(0, 0, 0, 1);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
         batch.setProjectionMatrix(camera.combined);
 		batch.begin();
 
-        Util.drawTextureFlipped(batch, backgroundTexture, 0, 0, RESOLUTION.x, RESOLUTION.y);
+        if (staticLayer != null) {
+            // Frame buffer textures are stored bottom-up, which is upright for the y-down camera.
+            batch.draw(staticLayer.getColorBufferTexture(), 0, 0, RESOLUTION.x, RESOLUTION.y);
+        } else {
+            Util.drawTextureFlipped(batch, backgroundTexture, 0, 0, RESOLUTION.x, RESOLUTION.y);
+            board.drawStatic(batch);
+        }
         board.draw(batch);
 
 		batch.end();
+
+        frameRenderCalls = layerRenderCalls + batch.renderCalls;
+        if (GLProfiler.isEnabled()) {
+            frameTextureBindings = GLProfiler.textureBindings;
+            GLProfiler.reset();
+        }
+
+        updateRenderingMode();
 	}
 
+    // Sleeps once this frame shows a settled board, until input or the next blink wakes it.
+    private void updateRenderingMode() {
+        final boolean replaying = replayPlayer != null && !replayPlayer.isFinished();
+        if (board.isSettled() && inputQueue.size() == 0 && !replaying) {
+            wakeUp.cancel();
+            final float delay = board.getPieceStore().getNextBlinkDelay();
+            if (delay != Float.POSITIVE_INFINITY) {
+                Timer.schedule(wakeUp, delay);
+            }
+            if (!sleeping) {
+                sleeping = true;
+                Gdx.graphics.setContinuousRendering(false);
+            }
+        } else if (sleeping) {
+            sleeping = false;
+            wakeUp.cancel();
+            Gdx.graphics.setContinuousRendering(true);
+        }
+    }
+
+    // (Re)creates the layer at the back buffer's size, its content is drawn with the next frame.
+    private void createStaticLayer() {
+        if (staticLayer != null) {
+            staticLayer.dispose();
+            staticLayer = null;
+        }
+        staticLayerDirty = true;
+
+        final int width = Gdx.graphics.getBackBufferWidth();
+        final int height = Gdx.graphics.getBackBufferHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        // RGBA8888 color attachments are not complete on every GLES 2 driver, which the frame
+        // buffer reports by throwing.
+        try {
+            staticLayer = new FrameBuffer(Pixmap.Format.RGBA8888, width, height, false);
+        } catch (IllegalStateException e) {
+            Util.log("Static layer unavailable, drawing the board directly: " + e.getMessage());
+            return;
+        }
+
+        // One texel per screen pixel, so the copy must not be filtered.
+        staticLayer.getColorBufferTexture().setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+    }
+
+    private void drawStaticLayer() {
+        staticLayer.begin();
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        Util.drawTextureFlipped(batch, backgroundTexture, 0, 0, RESOLUTION.x, RESOLUTION.y);
+        board.drawStatic(batch);
+        batch.end();
+
+        staticLayer.end();
+        staticLayerDirty = false;
+    }
+
+    // Draws over the changed cells only, the rest of the layer stays as it is.
+    private void updateStaticLayer() {
+        staticLayer.begin();
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        board.drawDirtyCells(batch);
+        batch.end();
+        staticLayer.end();
+    }
+
     @Override
     public void pause() {
 
@@ -157,21 +481,34 @@ public class Game implements ApplicationListener, InputProcessor {
     @Override
     public void resume() {
 
+        // Frame buffers are recreated with the context, but their contents are gone.
+        staticLayerDirty = true;
+        Gdx.graphics.requestRendering();
     }
 
     @Override
 	public void dispose () {
-		batch.dispose();
-        disposeTextures();
-        board.dispose();
-	}
 
-    private void disposeTextures() {
-        for(TextureAtlas atlas : textureAtlases.values()) {
-            atlas.dispose();
+        // Everything below is created in create(), which may not have run or may have failed.
+        if (wakeUp != null) {
+            wakeUp.cancel();
         }
-        textureAtlases.clear();
-    }
+        if (batch != null) {
+            batch.dispose();
+        }
+        if (board != null) {
+            board.dispose();
+        }
+        if (loadingRenderer != null) {
+            loadingRenderer.dispose();
+        }
+        if (staticLayer != null) {
+            staticLayer.dispose();
+        }
+        if (assets != null) {
+            assets.dispose();
+        }
+	}
 
     @Override
     public boolean keyDown(int keycode) {
@@ -190,15 +527,10 @@ public class Game implements ApplicationListener, InputProcessor {
 
     @Override
     public boolean touchDown(int screenX, int screenY, int pointer, int button) {
-
-        // Only allow player moves in active state.
-        if(state == State.Active) {
-            if (pointer == 0) {
-                board.onTouch(screenX, screenY);
-                return true;
-            } else {
-                return false;
-            }
+        if (pointer == 0) {
+            inputQueue.offer(InputQueue.TOUCH, screenX, screenY);
+            Gdx.graphics.requestRendering();
+            return true;
         } else {
             return false;
         }
@@ -211,15 +543,10 @@ public class Game implements ApplicationListener, InputProcessor {
 
     @Override
     public boolean touchDragged(int screenX, int screenY, int pointer) {
-
-        // Only allow player moves in active state.
-        if(state == State.Active) {
-            if (pointer == 0) {
-                board.onDrag(screenX, screenY);
-                return true;
-            } else {
-                return false;
-            }
+        if (pointer == 0) {
+            inputQueue.offer(InputQueue.DRAG, screenX, screenY);
+            Gdx.graphics.requestRendering();
+            return true;
         } else {
             return false;
         }
@@ -235,8 +562,56 @@ public class Game implements ApplicationListener, InputProcessor {
         return false;
     }
 
+    /**
+     * Atlases that were not loaded upfront are loaded synchronously on first use.
+     */
     public TextureAtlas getTextureAtlas(TextureAtlasName name) {
-        return textureAtlases.get(name);
+        final String file = ATLAS_FILES[name.ordinal()];
+        if (!assets.isLoaded(file, TextureAtlas.class)) {
+            assets.load(file, TextureAtlas.class, new TextureAtlasLoader.TextureAtlasParameter(true));
+            assets.finishLoadingAsset(file);
+            Util.log("Loaded " + file + " on first use");
+        }
+        return assets.get(file, TextureAtlas.class);
+    }
+
+    /**
+     * Counts texture bindings from now on, see {@link #getFrameTextureBindings()}.
+     * Wraps the GL interface, so leave it off unless measuring.
+     */
+    public void setProfiling(boolean enabled) {
+        if (enabled) {
+            GLProfiler.enable();
+        } else {
+            GLProfiler.disable();
+        }
+    }
+
+    // SpriteBatch render calls of the last frame including cached layer redraws, one per flush.
+    public int getFrameRenderCalls() {
+        return frameRenderCalls;
+    }
+
+    // Texture bindings of the last frame, only counted while profiling.
+    public int getFrameTextureBindings() {
+        return frameTextureBindings;
+    }
+
+    // Texture loaded by the game's asset manager, which owns and disposes it.
+    public Texture getTexture(String fileName) {
+        return assets.get(fileName, Texture.class);
+    }
+
+    /**
+     * Plays the log back on its own board instead of a new game. Call before the game is created.
+     */
+    public void setReplay(MoveLog log) {
+        this.replayLog = log;
+    }
+
+    // Swaps of the session so far, e.g. to upload for score verification. Null while replaying.
+    public MoveLog getMoveLog() {
+        return moveLog;
     }
 
     public State getState() {
@@ -247,7 +622,12 @@ public class Game implements ApplicationListener, InputProcessor {
         this.state = state;
     }
 
-    public AnimationManager<String> getAnimationManager() {
-        return animationManager;
+    public AnimationTable getAnimationTable() {
+        return animationTable;
+    }
+
+    // Number of piece variants there is character art for.
+    public static int getMaxVariantCount() {
+        return VARIANT_ART.length;
     }
 }
@@ -0,0 +1,92 @@
+package com.houseforest.matchthree;
+
+/**
+ * Lock-free single-producer, single-consumer ring buffer of pointer events.
+ *
+ * The input callbacks only append an event, the game drains the queue at the start of its
+ * update. Events live in parallel primitive arrays, so neither side allocates. The producer
+ * publishes an event by advancing the volatile tail after writing it, the consumer frees a
+ * slot by advancing the volatile head after reading it.
+ */
+public class InputQueue {
+
+    public static final int TOUCH = 0;
+    public static final int DRAG = 1;
+
+    private final int mask;
+    private final int[] types;
+    private final int[] xs;
+    private final int[] ys;
+
+    // Next slot to read and next slot to write, both only ever increase.
+    private volatile int head;
+    private volatile int tail;
+
+    // Event returned by the last successful poll().
+    private int type;
+    private int x;
+    private int y;
+
+    /**
+     * @param capacity Rounded up to a power of two.
+     */
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.types = new int[size];
+        this.xs = new int[size];
+        this.ys = new int[size];
+    }
+
+    /**
+     * Appends an event, producer side only.
+     * @return False if the queue is full and the event was dropped.
+     */
+    public boolean offer(int type, int x, int y) {
+        final int t = tail;
+        if (t - head > mask) {
+            return false;
+        }
+
+        final int i = t & mask;
+        types[i] = type;
+        xs[i] = x;
+        ys[i] = y;
+        tail = t + 1;
+        return true;
+    }
+
+    /**
+     * Takes the oldest event, consumer side only. Read it through the getters.
+     * @return False if the queue is empty.
+     */
+    public boolean poll() {
+        final int h = head;
+        if (h == tail) {
+            return false;
+        }
+
+        final int i = h & mask;
+        type = types[i];
+        x = xs[i];
+        y = ys[i];
+        head = h + 1;
+        return true;
+    }
+
+    public int size() {
+        return tail - head;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+}
@@ -1,7 +1,5 @@
 package com.houseforest.matchthree;
 
-import java.awt.Point;
-
 /**
  * Created by Tom on 13.01.2017.
  */
@@ -10,16 +8,33 @@ public class Match {
 
     private boolean horizontal;
     private int length;
+    private int variant;
     private Vector2i start;
     private Vector2i end;
 
     public Match(Vector2i start, Vector2i end) {
+        this(start, end, BitBoard.EMPTY);
+    }
+
+    public Match(Vector2i start, Vector2i end, int variant) {
         this.start = start;
         this.end = end;
+        this.variant = variant;
         this.horizontal = end.x != start.x;
         this.length = horizontal ? (end.x - start.x + 1) : (end.y - start.y + 1);
     }
 
+    // Reuses the instance for another run, see MatchFinder.
+    void set(int x0, int y0, int x1, int y1, int variant) {
+        this.start.x = x0;
+        this.start.y = y0;
+        this.end.x = x1;
+        this.end.y = y1;
+        this.variant = variant;
+        this.horizontal = x1 != x0;
+        this.length = horizontal ? (x1 - x0 + 1) : (y1 - y0 + 1);
+    }
+
     public boolean isHorizontal() {
         return horizontal;
     }
@@ -28,6 +43,10 @@ public class Match {
         return length;
     }
 
+    public int getVariant() {
+        return variant;
+    }
+
     public Vector2i getStart() {
          return start;
     }
@@ -0,0 +1,73 @@
+package com.houseforest.matchthree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Group of runs of one variant that share at least one cell, e.g. L, T and cross shapes.
+ * A straight line is a cluster with a single run.
+ */
+public class MatchCluster {
+
+    private int variant;
+    private int size;
+    private List<Match> runs;
+
+    // Row-major cell mask, bit x of cells[y] is set for every member cell.
+    private long[] cells;
+
+    public MatchCluster(int variant, int height) {
+        this.variant = variant;
+        this.runs = new ArrayList<>(2);
+        this.cells = new long[height];
+    }
+
+    // Reuses the instance for another cluster, see MatchFinder.
+    void reset(int variant) {
+        this.variant = variant;
+        this.size = 0;
+        this.runs.clear();
+        Arrays.fill(cells, 0L);
+    }
+
+    void addRun(Match run) {
+        runs.add(run);
+        if (run.isHorizontal()) {
+            int y = run.getStart().y;
+            for (int x = run.getStart().x; x <= run.getEnd().x; ++x) {
+                addCell(x, y);
+            }
+        } else {
+            int x = run.getStart().x;
+            for (int y = run.getStart().y; y <= run.getEnd().y; ++y) {
+                addCell(x, y);
+            }
+        }
+    }
+
+    private void addCell(int x, int y) {
+        long bit = 1L << x;
+        if ((cells[y] & bit) == 0) {
+            cells[y] |= bit;
+            ++size;
+        }
+    }
+
+    public int getVariant() {
+        return variant;
+    }
+
+    // Number of distinct cells, crossing runs count their shared cell once.
+    public int getSize() {
+        return size;
+    }
+
+    public List<Match> getRuns() {
+        return runs;
+    }
+
+    public long[] getCells() {
+        return cells;
+    }
+}
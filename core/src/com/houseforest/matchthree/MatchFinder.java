@@ -0,0 +1,190 @@
+package com.houseforest.matchthree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds every run on a {@link BitBoard} in a single pass and merges runs that share
+ * cells into {@link MatchCluster}s, so one cascade step can clear all of them together.
+ *
+ * Only rows and columns the board marked dirty are scanned. A stable board has no runs,
+ * so every new run has to contain a changed cell and therefore lies on a dirty line.
+ *
+ * Runs and clusters are recycled between scans, results are only valid until the next call.
+ */
+public class MatchFinder {
+
+    private final BitBoard board;
+
+    // Run id of the horizontal run covering each cell (x + y * width), -1 if none.
+    private final int[] cellRuns;
+
+    // Union-find over run ids.
+    private int[] parents;
+
+    // Recycled runs and clusters, the first runCount / clusterCount entries are in use.
+    private final List<Match> runs;
+    private int runCount;
+    private final List<MatchCluster> clusterPool;
+    private int clusterCount;
+    private MatchCluster[] byRoot;
+
+    public MatchFinder(BitBoard board) {
+        this.board = board;
+        this.cellRuns = new int[board.getWidth() * board.getHeight()];
+        this.parents = new int[16];
+        this.runs = new ArrayList<>();
+        this.clusterPool = new ArrayList<>();
+        this.byRoot = new MatchCluster[16];
+        Arrays.fill(cellRuns, -1);
+    }
+
+    /**
+     * Collects all matches on the dirty lines of the board and consumes the dirty state.
+     * @param clusters Receives one entry per connected group of runs, cleared first.
+     * @param matched Row-major union of all matched cells, may be null.
+     * @return Whether anything matched.
+     */
+    public boolean find(List<MatchCluster> clusters, long[] matched) {
+        clusters.clear();
+        runCount = 0;
+        clusterCount = 0;
+
+        final int width = board.getWidth();
+        final int height = board.getHeight();
+
+        // Horizontal runs on dirty rows, labelling their cells.
+        long dirtyRows = board.getDirtyRows();
+        while (dirtyRows != 0) {
+            final int y = Long.numberOfTrailingZeros(dirtyRows);
+            dirtyRows &= dirtyRows - 1;
+            for (int v = 0; v < board.getVariantCount(); ++v) {
+                final long m = board.getVariantRow(v, y);
+                final long t = m & (m >>> 1) & (m >>> 2);
+
+                // Lowest bit of each group of triples marks the start of a run.
+                long starts = t & ~(t << 1);
+                while (starts != 0) {
+                    final int x0 = Long.numberOfTrailingZeros(starts);
+                    starts &= starts - 1;
+                    final int x1 = x0 + Long.numberOfTrailingZeros(~(m >>> x0));
+
+                    final int id = addRun(x0, y, x1 - 1, y, v);
+                    for (int x = x0; x < x1; ++x) {
+                        cellRuns[x + y * width] = id;
+                    }
+                }
+            }
+        }
+
+        // Vertical runs on dirty columns, merging with horizontal runs they cross.
+        long dirtyColumns = board.getDirtyColumns();
+        while (dirtyColumns != 0) {
+            final int x = Long.numberOfTrailingZeros(dirtyColumns);
+            dirtyColumns &= dirtyColumns - 1;
+            for (int v = 0; v < board.getVariantCount(); ++v) {
+                final long m = board.getVariantColumn(v, x);
+                final long t = m & (m >>> 1) & (m >>> 2);
+
+                long starts = t & ~(t << 1);
+                while (starts != 0) {
+                    final int y0 = Long.numberOfTrailingZeros(starts);
+                    starts &= starts - 1;
+                    final int y1 = y0 + Long.numberOfTrailingZeros(~(m >>> y0));
+
+                    final int id = addRun(x, y0, x, y1 - 1, v);
+                    for (int y = y0; y < y1; ++y) {
+                        final int crossing = cellRuns[x + y * width];
+                        if (crossing >= 0) {
+                            union(crossing, id);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Build one cluster per root and reset the labels for the next pass.
+        for (int id = 0; id < runCount; ++id) {
+            final Match run = runs.get(id);
+            final int root = findRoot(id);
+            MatchCluster cluster = root == id ? null : byRoot[root];
+            if (cluster == null) {
+                cluster = obtainCluster(run.getVariant(), height);
+                byRoot[root] = cluster;
+                clusters.add(cluster);
+            }
+            cluster.addRun(run);
+
+            if (run.isHorizontal()) {
+                final int y = run.getStart().y;
+                for (int x = run.getStart().x; x <= run.getEnd().x; ++x) {
+                    cellRuns[x + y * width] = -1;
+                }
+            }
+        }
+
+        board.clearDirty();
+
+        if (matched != null) {
+            Arrays.fill(matched, 0, height, 0L);
+            for (int i = 0; i < clusters.size(); ++i) {
+                final long[] cells = clusters.get(i).getCells();
+                for (int y = 0; y < height; ++y) {
+                    matched[y] |= cells[y];
+                }
+            }
+        }
+
+        return !clusters.isEmpty();
+    }
+
+    private int addRun(int x0, int y0, int x1, int y1, int variant) {
+        final int id = runCount++;
+        if (id == runs.size()) {
+            runs.add(new Match(new Vector2i(x0, y0), new Vector2i(x1, y1), variant));
+        } else {
+            runs.get(id).set(x0, y0, x1, y1, variant);
+        }
+        if (id >= parents.length) {
+            parents = Arrays.copyOf(parents, parents.length * 2);
+            byRoot = Arrays.copyOf(byRoot, parents.length);
+        }
+        parents[id] = id;
+        return id;
+    }
+
+    private MatchCluster obtainCluster(int variant, int height) {
+        final MatchCluster cluster;
+        if (clusterCount == clusterPool.size()) {
+            cluster = new MatchCluster(variant, height);
+            clusterPool.add(cluster);
+        } else {
+            cluster = clusterPool.get(clusterCount);
+            cluster.reset(variant);
+        }
+        ++clusterCount;
+        return cluster;
+    }
+
+    private int findRoot(int id) {
+        while (parents[id] != id) {
+            parents[id] = parents[parents[id]];
+            id = parents[id];
+        }
+        return id;
+    }
+
+    private void union(int a, int b) {
+        final int rootA = findRoot(a);
+        final int rootB = findRoot(b);
+        if (rootA != rootB) {
+            // Keep the lower id as root so clusters are listed in discovery order.
+            if (rootA < rootB) {
+                parents[rootB] = rootA;
+            } else {
+                parents[rootA] = rootB;
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.houseforest.matchthree;
+
+/**
+ * Lists the swaps on a {@link BitBoard} that create a match, without trying any of them.
+ *
+ * A swap is valid if the piece moving into a cell completes one of the classic "two plus
+ * one" templates there: two pieces of its variant on the same line, either both on one
+ * side of the cell or one on each side, not counting the cell it comes from. Every template
+ * is a shifted AND of row masks, so one pass over the rows evaluates all cells at once.
+ *
+ * Moves are encoded as ints: the cell index (x + y * width) shifted left by one, with the
+ * lowest bit selecting the neighbour it is swapped with (0 = right, 1 = below).
+ */
+public class MoveGenerator {
+
+    public static final int NONE = -1;
+    public static final int RIGHT = 0;
+    public static final int DOWN = 1;
+
+    private final BitBoard board;
+
+    // Bit x of rightSwaps[y] marks a valid swap of (x, y) and (x + 1, y),
+    // bit x of downSwaps[y] one of (x, y) and (x, y + 1).
+    private final long[] rightSwaps;
+    private final long[] downSwaps;
+
+    public MoveGenerator(BitBoard board) {
+        this.board = board;
+        this.rightSwaps = new long[board.getHeight()];
+        this.downSwaps = new long[board.getHeight()];
+    }
+
+    public static int encode(int x, int y, int direction, int width) {
+        return ((x + y * width) << 1) | direction;
+    }
+
+    public static int getX(int move, int width) {
+        return (move >>> 1) % width;
+    }
+
+    public static int getY(int move, int width) {
+        return (move >>> 1) / width;
+    }
+
+    public static int getDirection(int move) {
+        return move & 1;
+    }
+
+    public static int getTargetX(int move, int width) {
+        return getX(move, width) + (getDirection(move) == RIGHT ? 1 : 0);
+    }
+
+    public static int getTargetY(int move, int width) {
+        return getY(move, width) + (getDirection(move) == DOWN ? 1 : 0);
+    }
+
+    private long row(int variant, int y) {
+        return y >= 0 && y < board.getHeight() ? board.getVariantRow(variant, y) : 0L;
+    }
+
+    /**
+     * Evaluates all templates for all variants and stores the valid swap masks.
+     * @return Whether any valid swap exists.
+     */
+    public boolean update() {
+        long any = 0L;
+        for (int y = 0; y < board.getHeight(); ++y) {
+            any |= updateRow(y);
+        }
+        return any != 0L;
+    }
+
+    // Evaluates the templates for swaps whose left or upper cell lies in row y.
+    private long updateRow(int y) {
+        final int height = board.getHeight();
+        final long rowMask = board.getRowMask();
+        long right = 0L;
+        long down = 0L;
+        final long occupied = board.getOccupiedRow(y);
+        final long occupiedBelow = y + 1 < height ? board.getOccupiedRow(y + 1) : 0L;
+
+        for (int v = 0; v < board.getVariantCount(); ++v) {
+            final long m = board.getVariantRow(v, y);
+            final long up1 = row(v, y - 1);
+            final long up2 = row(v, y - 2);
+            final long down1 = row(v, y + 1);
+            final long down2 = row(v, y + 2);
+
+            // Vertical templates centered on each cell of this row.
+            final long vertical = (up1 & up2) | (up1 & down1) | (down1 & down2);
+
+            // Horizontal swaps, bit x for (x, y) <-> (x + 1, y).
+            {
+                // v moves right into x + 1: two more to its right, or a vertical template there.
+                final long movesRight = m & ~(m >>> 1) & (occupied >>> 1);
+                final long rightOfTarget = (m >>> 2) & (m >>> 3);
+                right |= movesRight & (rightOfTarget | (vertical >>> 1));
+
+                // v moves left into x: two more to its left, or a vertical template there.
+                final long movesLeft = (m >>> 1) & ~m & occupied;
+                final long leftOfTarget = (m << 1) & (m << 2);
+                right |= movesLeft & (leftOfTarget | vertical);
+            }
+
+            // Vertical swaps, bit x for (x, y) <-> (x, y + 1).
+            if (y + 1 < height) {
+                final long down3 = row(v, y + 3);
+
+                // v moves down into row y + 1: two more below, or a horizontal template in that row.
+                final long movesDown = m & ~down1 & occupiedBelow;
+                final long belowTarget = down2 & down3;
+                down |= movesDown & (belowTarget | horizontalTemplates(down1));
+
+                // v moves up into row y: two more above, or a horizontal template in this row.
+                final long movesUp = down1 & ~m & occupied;
+                final long aboveTarget = up1 & up2;
+                down |= movesUp & (aboveTarget | horizontalTemplates(m));
+            }
+        }
+
+        rightSwaps[y] = right & (rowMask >>> 1);
+        downSwaps[y] = down & rowMask;
+        return rightSwaps[y] | downSwaps[y];
+    }
+
+    // Cells with two pieces of the line's variant on their left, right or either side.
+    private static long horizontalTemplates(long m) {
+        final long left1 = m << 1;
+        final long right1 = m >>> 1;
+        return (left1 & (m << 2)) | (left1 & right1) | (right1 & (m >>> 2));
+    }
+
+    /**
+     * Writes all valid moves into out, ordered by cell index.
+     * @param out Must hold at least 2 * width * height entries.
+     * @return Number of moves written.
+     */
+    public int generate(int[] out) {
+        update();
+
+        final int width = board.getWidth();
+        int count = 0;
+        for (int y = 0; y < board.getHeight(); ++y) {
+            long bits = rightSwaps[y] | downSwaps[y];
+            while (bits != 0) {
+                final int x = Long.numberOfTrailingZeros(bits);
+                final long bit = bits & -bits;
+                bits &= bits - 1;
+                if ((rightSwaps[y] & bit) != 0) {
+                    out[count++] = encode(x, y, RIGHT, width);
+                }
+                if ((downSwaps[y] & bit) != 0) {
+                    out[count++] = encode(x, y, DOWN, width);
+                }
+            }
+        }
+        return count;
+    }
+
+    public int count() {
+        update();
+
+        int count = 0;
+        for (int y = 0; y < board.getHeight(); ++y) {
+            count += Long.bitCount(rightSwaps[y]) + Long.bitCount(downSwaps[y]);
+        }
+        return count;
+    }
+
+    // Returns the first valid move to show as a hint, or NONE if the board is dead.
+    public int findHint() {
+        final int width = board.getWidth();
+        for (int y = 0; y < board.getHeight(); ++y) {
+            final long bits = updateRow(y);
+            if (bits != 0) {
+                final int x = Long.numberOfTrailingZeros(bits);
+                return encode(x, y, ((rightSwaps[y] >>> x) & 1L) != 0 ? RIGHT : DOWN, width);
+            }
+        }
+        return NONE;
+    }
+
+    public boolean hasMove() {
+        for (int y = 0; y < board.getHeight(); ++y) {
+            if (updateRow(y) != 0L) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
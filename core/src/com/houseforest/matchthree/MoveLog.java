@@ -0,0 +1,232 @@
+package com.houseforest.matchthree;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary record of a session: the board setup and every swap that reached the engine.
+ *
+ * The header holds a format version, the board size and variant count as varints and the
+ * 64-bit seed. Each swap follows as a varint of (ticks since the previous swap << 1 | direction)
+ * and the index of its top left cell, one byte on boards of up to 256 cells and two otherwise.
+ * A swap a second apart at 60 updates per second takes three bytes.
+ *
+ * The engine is deterministic for a seed and a sequence of swaps, so replaying a log reproduces
+ * the session's boards and score exactly. Like the engine it runs without libGDX.
+ */
+public class MoveLog {
+
+    public static final int VERSION = 1;
+
+    private final int width;
+    private final int height;
+    private final int variantCount;
+    private final long seed;
+    private final int cellBytes;
+
+    // Header followed by the encoded swaps.
+    private byte[] data;
+    private int size;
+    private final int headerSize;
+    private int moveCount;
+    private long lastTick;
+
+    public MoveLog(int width, int height, int variantCount, long seed) {
+        this.width = width;
+        this.height = height;
+        this.variantCount = variantCount;
+        this.seed = seed;
+        this.cellBytes = width * height <= 256 ? 1 : 2;
+        this.data = new byte[64];
+
+        writeByte(VERSION);
+        writeVarLong(width);
+        writeVarLong(height);
+        writeVarLong(variantCount);
+        for (int i = 0; i < 8; ++i) {
+            writeByte((int) (seed >>> (i * 8)));
+        }
+        this.headerSize = size;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getVariantCount() {
+        return variantCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Appends a swap.
+     * @param tick Board updates before the swap, never less than the previous swap's.
+     * @param move Encoded as by MoveGenerator.
+     */
+    public void record(long tick, int move) {
+        if (tick < lastTick) {
+            throw new IllegalArgumentException("Swaps must be recorded in order: tick " + tick + " after " + lastTick);
+        }
+
+        writeVarLong(((tick - lastTick) << 1) | MoveGenerator.getDirection(move));
+        final int cell = move >>> 1;
+        writeByte(cell);
+        if (cellBytes == 2) {
+            writeByte(cell >>> 8);
+        }
+        lastTick = tick;
+        ++moveCount;
+    }
+
+    // Records a swap of two adjacent cells given in any order.
+    public void record(long tick, int x1, int y1, int x2, int y2) {
+        final int direction = y1 == y2 ? MoveGenerator.RIGHT : MoveGenerator.DOWN;
+        record(tick, MoveGenerator.encode(Math.min(x1, x2), Math.min(y1, y2), direction, width));
+    }
+
+    private void writeByte(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, size * 2);
+        }
+        data[size++] = (byte) value;
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(data, size);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the bytes are not a log of this version.
+     */
+    public static MoveLog fromBytes(byte[] bytes) {
+        final Reader header = new Reader(bytes, 0, bytes.length, 1);
+        if (bytes.length == 0 || header.readByte() != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " move log");
+        }
+
+        final int width = (int) header.readVarLong();
+        final int height = (int) header.readVarLong();
+        final int variantCount = (int) header.readVarLong();
+        long seed = 0L;
+        for (int i = 0; i < 8; ++i) {
+            seed |= (long) header.readByte() << (i * 8);
+        }
+
+        final MoveLog log = new MoveLog(width, height, variantCount, seed);
+        final Reader moves = new Reader(bytes, header.position, bytes.length, log.cellBytes);
+        while (moves.next()) {
+            log.record(moves.getTick(), moves.getMove());
+        }
+        return log;
+    }
+
+    // Reads the swaps recorded so far, from the first.
+    public Reader read() {
+        return new Reader(data, headerSize, size, cellBytes);
+    }
+
+    /**
+     * Plays all swaps on a new engine and resolves their cascades, without any animation.
+     * @return The engine after the last swap, e.g. to verify the score.
+     * @throws IllegalStateException If a swap is not valid on the replayed board.
+     */
+    public BoardEngine replay() {
+        final BoardEngine engine = new BoardEngine(width, height, variantCount, seed);
+        final Reader reader = read();
+        while (reader.next()) {
+            final int move = reader.getMove();
+            if (!engine.trySwap(MoveGenerator.getX(move, width), MoveGenerator.getY(move, width),
+                    MoveGenerator.getTargetX(move, width), MoveGenerator.getTargetY(move, width))) {
+                throw new IllegalStateException("Swap " + engine.getMoves() + " at tick " + reader.getTick() + " is not valid");
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Walks the swaps of a log in order.
+     */
+    public static class Reader {
+
+        private final byte[] data;
+        private final int end;
+        private final int cellBytes;
+        private int position;
+
+        // Swap returned by the last successful next().
+        private long tick;
+        private int move;
+
+        private Reader(byte[] data, int start, int end, int cellBytes) {
+            this.data = data;
+            this.position = start;
+            this.end = end;
+            this.cellBytes = cellBytes;
+        }
+
+        /**
+         * Advances to the next swap, read it through the getters.
+         * @return False after the last swap.
+         */
+        public boolean next() {
+            if (position >= end) {
+                return false;
+            }
+
+            final long entry = readVarLong();
+            int cell = readByte();
+            if (cellBytes == 2) {
+                cell |= readByte() << 8;
+            }
+            tick += entry >>> 1;
+            move = (cell << 1) | (int) (entry & 1L);
+            return true;
+        }
+
+        // Board updates before the swap.
+        public long getTick() {
+            return tick;
+        }
+
+        // Encoded as by MoveGenerator.
+        public int getMove() {
+            return move;
+        }
+
+        private int readByte() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Move log ends in the middle of an entry");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        private long readVarLong() {
+            long value = 0L;
+            for (int shift = 0; ; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
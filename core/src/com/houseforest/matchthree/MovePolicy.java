@@ -0,0 +1,39 @@
+package com.houseforest.matchthree;
+
+/**
+ * Picks the next move of a simulated player. Implementations must not keep per-game
+ * state, one instance is shared by all simulation threads.
+ */
+public interface MovePolicy {
+
+    /**
+     * @param moves Valid moves as encoded by {@link MoveGenerator}.
+     * @param count Number of valid entries in moves, always positive.
+     * @return The chosen move.
+     */
+    int choose(BoardEngine engine, int[] moves, int count, RandomSource random);
+
+    // Plays a uniformly random valid move.
+    MovePolicy RANDOM = new MovePolicy() {
+        @Override
+        public int choose(BoardEngine engine, int[] moves, int count, RandomSource random) {
+            return moves[random.nextInt(count)];
+        }
+    };
+
+    // Always plays the top-left valid move, like a player following the hint.
+    MovePolicy FIRST = new MovePolicy() {
+        @Override
+        public int choose(BoardEngine engine, int[] moves, int count, RandomSource random) {
+            return moves[0];
+        }
+    };
+
+    // Prefers moves close to the bottom, which tend to trigger longer cascades.
+    MovePolicy BOTTOM = new MovePolicy() {
+        @Override
+        public int choose(BoardEngine engine, int[] moves, int count, RandomSource random) {
+            return moves[count - 1];
+        }
+    };
+}
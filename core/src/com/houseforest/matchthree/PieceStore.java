@@ -0,0 +1,421 @@
+package com.houseforest.matchthree;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Animation state of all pieces of one board, kept in parallel primitive arrays.
+ *
+ * A piece is a slot index into these arrays. Updating and drawing a board are single loops
+ * over the slots instead of virtual calls on objects scattered across the heap, so the cost
+ * stays linear and cache friendly for large boards and for many boards on screen at once.
+ * Freed slots are recycled, the store does not allocate after construction.
+ *
+ * The store counts moving and exploding pieces as they change state, so the board can wait
+ * for all of them to finish in O(1) instead of polling every piece each frame.
+ *
+ * Pieces resting on a cell in their idle frame are static and can be drawn once into a cached
+ * layer. Whenever a piece becomes static or stops being static, its cell is marked dirty, so
+ * only those cells of the layer need to be redrawn.
+ */
+public class PieceStore {
+
+    public static final int NONE = -1;
+
+    public enum MovementType {
+        Swap,
+        Fall
+    }
+
+    // Slot states.
+    private static final byte FREE = 0;
+    private static final byte IDLE = 1;
+    private static final byte MOVING = 2;
+    private static final byte EXPLODING = 3;
+
+    private static final AnimationKind[] KINDS = AnimationKind.values();
+
+    // Cells per second, indexed by MovementType.
+    private static final float[] movementSpeeds = { 2.5f, 7.5f };
+
+    private final AnimationTable animations;
+    private final int capacity;
+    private final int width;
+    private final int height;
+
+    // Top left corner of the first cell's content area and the distance between cells, in pixels.
+    private final float originX;
+    private final float originY;
+    private final float pitchX;
+    private final float pitchY;
+
+    // Drawn size and centering offset per variant, its idle key frame scaled to fit a cell.
+    private final float[] drawWidth;
+    private final float[] drawHeight;
+    private final float[] drawOffsetX;
+    private final float[] drawOffsetY;
+
+    // Per slot: state, variant and animation.
+    private final byte[] state;
+    private final int[] variant;
+    private final byte[] animation;
+    private final float[] elapsed;
+    private final float[] nextBlink;
+
+    // Per slot: position of the cell content area in pixels, where it is heading and how fast.
+    // The previous position is where it was one update earlier, drawing interpolates between.
+    private final float[] x;
+    private final float[] y;
+    private final float[] previousX;
+    private final float[] previousY;
+    private final float[] targetX;
+    private final float[] targetY;
+    private final float[] speed;
+
+    // Per slot: whether it is part of the cached layer.
+    private final boolean[] statics;
+    private int staticCount;
+
+    // Cells (row-major, bit x) whose cached layer content is out of date.
+    private final long[] dirtyCells;
+    private boolean hasDirtyCells;
+
+    private final int[] freeSlots;
+    private int freeCount;
+
+    // Fraction of an update that has passed since the last one, see setInterpolation().
+    private float interpolation = 1.0f;
+
+    // Pieces whose move or explosion has not finished yet.
+    private int movingCount;
+    private int explodingCount;
+
+    public PieceStore(Board board, AnimationTable animations, int capacity) {
+        this.animations = animations;
+        this.capacity = capacity;
+        this.width = board.getPieceCount().x;
+        this.height = board.getPieceCount().y;
+
+        // Content area of pieces, the padding scales with the cell (5 px on 76 px cells).
+        final int cellSize = board.getCellSize();
+        final int padding = cellSize / 15;
+        final int pieceWidth = cellSize - 2 * padding;
+        final int pieceHeight = cellSize - 2 * padding;
+        this.originX = board.getOffset().x + board.getMargin().x + padding;
+        this.originY = board.getOffset().y + board.getMargin().y + padding;
+        this.pitchX = cellSize;
+        this.pitchY = cellSize;
+
+        final int variantCount = animations.getVariantCount();
+        this.drawWidth = new float[variantCount];
+        this.drawHeight = new float[variantCount];
+        this.drawOffsetX = new float[variantCount];
+        this.drawOffsetY = new float[variantCount];
+        for (int v = 0; v < variantCount; ++v) {
+            TextureRegion frame = animations.get(v, AnimationKind.Idle).getKeyFrame(0.0f);
+            float scaleFactor = pieceWidth / (float) Math.max(frame.getRegionWidth(), frame.getRegionHeight());
+            drawWidth[v] = frame.getRegionWidth() * scaleFactor;
+            drawHeight[v] = frame.getRegionHeight() * scaleFactor;
+            drawOffsetX[v] = (pieceWidth - drawWidth[v]) / 2;
+            drawOffsetY[v] = (pieceHeight - drawHeight[v]) / 2;
+        }
+
+        this.state = new byte[capacity];
+        this.variant = new int[capacity];
+        this.animation = new byte[capacity];
+        this.elapsed = new float[capacity];
+        this.nextBlink = new float[capacity];
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.previousX = new float[capacity];
+        this.previousY = new float[capacity];
+        this.targetX = new float[capacity];
+        this.targetY = new float[capacity];
+        this.speed = new float[capacity];
+        this.statics = new boolean[capacity];
+        this.dirtyCells = new long[height];
+
+        // Hand out low slots first.
+        this.freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; ++i) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        this.freeCount = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Places a new piece in the given cell, which may lie above the board.
+     * @return Slot of the piece.
+     */
+    public int obtain(int cellX, int cellY, int variant) {
+        if (freeCount == 0) {
+            throw new IllegalStateException("All " + capacity + " piece slots are in use");
+        }
+
+        final int slot = freeSlots[--freeCount];
+        setState(slot, IDLE);
+        this.variant[slot] = variant;
+        setAnimation(slot, AnimationKind.Idle);
+        nextBlink[slot] = MathUtils.random(1.0f, 10.0f);
+        place(slot, cellX, cellY);
+        return slot;
+    }
+
+    public void free(int slot) {
+        setState(slot, FREE);
+        updateStatic(slot);
+        freeSlots[freeCount++] = slot;
+    }
+
+    public int getVariant(int slot) {
+        return variant[slot];
+    }
+
+    // Changes the variant in place, e.g. when a dead board is recoloured.
+    public void setVariant(int slot, int variant) {
+        this.variant[slot] = variant;
+        setAnimation(slot, AnimationKind.Idle);
+        if (statics[slot]) {
+            markDirty(slot);
+        }
+        updateStatic(slot);
+    }
+
+    // Moves a piece to a cell immediately, cancelling any movement.
+    public void place(int slot, int cellX, int cellY) {
+        if (statics[slot]) {
+            markDirty(slot);
+        }
+        x[slot] = previousX[slot] = targetX[slot] = originX + cellX * pitchX;
+        y[slot] = previousY[slot] = targetY[slot] = originY + cellY * pitchY;
+        if (state[slot] == MOVING) {
+            setState(slot, IDLE);
+        }
+        if (statics[slot]) {
+            markDirty(slot);
+        }
+        updateStatic(slot);
+    }
+
+    // Cell coordinates may be fractional, e.g. for a piece that only moves part of the way.
+    public void moveTo(int slot, float cellX, float cellY, MovementType movementType) {
+        targetX[slot] = originX + cellX * pitchX;
+        targetY[slot] = originY + cellY * pitchY;
+        speed[slot] = movementSpeeds[movementType.ordinal()] * pitchX;
+        if (x[slot] != targetX[slot] || y[slot] != targetY[slot]) {
+            setState(slot, MOVING);
+            updateStatic(slot);
+        }
+    }
+
+    public void explode(int slot) {
+        setAnimation(slot, AnimationKind.Explode);
+        setState(slot, EXPLODING);
+        updateStatic(slot);
+    }
+
+    // Neither moving nor exploding.
+    public boolean isIdle(int slot) {
+        return state[slot] == IDLE;
+    }
+
+    public int getMovingCount() {
+        return movingCount;
+    }
+
+    public int getExplodingCount() {
+        return explodingCount;
+    }
+
+    // Pieces that need new frames: moving, exploding, blinking or resting off their cell.
+    public int getAnimatedCount() {
+        return capacity - freeCount - staticCount;
+    }
+
+    // Seconds until the next resting piece starts to blink, or infinity if there is none.
+    public float getNextBlinkDelay() {
+        float delay = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < capacity; ++i) {
+            if (statics[i]) {
+                delay = Math.min(delay, nextBlink[i]);
+            }
+        }
+        return delay;
+    }
+
+    // Every state change goes through here to keep the counters in sync.
+    private void setState(int slot, byte next) {
+        final byte previous = state[slot];
+        if (previous == next) {
+            return;
+        }
+
+        if (previous == MOVING) {
+            --movingCount;
+        } else if (previous == EXPLODING) {
+            --explodingCount;
+        }
+
+        if (next == MOVING) {
+            ++movingCount;
+        } else if (next == EXPLODING) {
+            ++explodingCount;
+        }
+        state[slot] = next;
+    }
+
+    // Marks the cell of a piece dirty whenever it joins or leaves the cached layer.
+    private void updateStatic(int slot) {
+        final int cellX = getCellX(slot);
+        final int cellY = getCellY(slot);
+        final boolean now = state[slot] == IDLE
+                && animation[slot] == AnimationKind.Idle.ordinal()
+                && isInside(cellX, cellY)
+                && x[slot] == originX + cellX * pitchX
+                && y[slot] == originY + cellY * pitchY;
+        if (now != statics[slot]) {
+            statics[slot] = now;
+            staticCount += now ? 1 : -1;
+            markDirty(slot);
+        }
+    }
+
+    private void markDirty(int slot) {
+        final int cellX = getCellX(slot);
+        final int cellY = getCellY(slot);
+        if (isInside(cellX, cellY)) {
+            dirtyCells[cellY] |= 1L << cellX;
+            hasDirtyCells = true;
+        }
+    }
+
+    private boolean isInside(int cellX, int cellY) {
+        return cellX >= 0 && cellY >= 0 && cellX < width && cellY < height;
+    }
+
+    // Cell nearest to the piece.
+    private int getCellX(int slot) {
+        return Math.round((x[slot] - originX) / pitchX);
+    }
+
+    private int getCellY(int slot) {
+        return Math.round((y[slot] - originY) / pitchY);
+    }
+
+    public boolean hasDirtyCells() {
+        return hasDirtyCells;
+    }
+
+    // Row-major, bit x of entry y is cell (x, y).
+    public long[] getDirtyCells() {
+        return dirtyCells;
+    }
+
+    // Called once the dirty cells of the cached layer have been redrawn.
+    public void clearDirtyCells() {
+        for (int y = 0; y < height; ++y) {
+            dirtyCells[y] = 0L;
+        }
+        hasDirtyCells = false;
+    }
+
+    private void setAnimation(int slot, AnimationKind kind) {
+        animation[slot] = (byte) kind.ordinal();
+        elapsed[slot] = 0.0f;
+    }
+
+    private Animation<TextureRegion> getAnimation(int slot) {
+        return animations.get(variant[slot], KINDS[animation[slot]]);
+    }
+
+    public void update(float dt) {
+        for (int i = 0; i < capacity; ++i) {
+            final byte s = state[i];
+            if (s == FREE) {
+                continue;
+            }
+
+            elapsed[i] += dt;
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+
+            if (s == IDLE) {
+                if (animation[i] == AnimationKind.Idle.ordinal()) {
+                    if ((nextBlink[i] -= dt) <= 0.0f) {
+                        setAnimation(i, AnimationKind.Blink);
+                        nextBlink[i] = MathUtils.random(6.0f, 30.0f);
+                        updateStatic(i);
+                    }
+                } else if (animation[i] == AnimationKind.Blink.ordinal() && getAnimation(i).isAnimationFinished(elapsed[i])) {
+                    setAnimation(i, AnimationKind.Idle);
+                    updateStatic(i);
+                }
+            } else if (s == MOVING) {
+                final float step = speed[i] * dt;
+                x[i] = approach(x[i], targetX[i], step);
+                y[i] = approach(y[i], targetY[i], step);
+                if (x[i] == targetX[i] && y[i] == targetY[i]) {
+                    setState(i, IDLE);
+                    updateStatic(i);
+                }
+            } else if (getAnimation(i).isAnimationFinished(elapsed[i])) {
+                // Exploded pieces rest on their last frame until the board frees them.
+                setState(i, IDLE);
+            }
+        }
+    }
+
+    private static float approach(float value, float target, float step) {
+        return value < target ? Math.min(value + step, target) : Math.max(value - step, target);
+    }
+
+    /**
+     * Draws moving pieces this far between their previous and their current position, so
+     * motion stays smooth when frames and updates do not line up.
+     * @param alpha Within [0, 1], 1 draws the current positions.
+     */
+    public void setInterpolation(float alpha) {
+        this.interpolation = alpha;
+    }
+
+    // Pieces that are not part of the cached layer.
+    public void draw(SpriteBatch batch) {
+        for (int i = 0; i < capacity; ++i) {
+            if (state[i] != FREE && !statics[i]) {
+                drawPiece(batch, i, interpolation);
+            }
+        }
+    }
+
+    /**
+     * Draws static pieces into the cached layer.
+     * @param cells Row-major mask of the cells to draw, or null for all of them.
+     */
+    public void drawStatic(SpriteBatch batch, long[] cells) {
+        for (int i = 0; i < capacity; ++i) {
+            if (statics[i] && (cells == null || ((cells[getCellY(i)] >>> getCellX(i)) & 1L) != 0)) {
+                // The layer outlives the frame, it holds the resting position.
+                drawPiece(batch, i, 1.0f);
+            }
+        }
+    }
+
+    private void drawPiece(SpriteBatch batch, int slot, float alpha) {
+        final int v = variant[slot];
+        final float drawX = previousX[slot] + (x[slot] - previousX[slot]) * alpha;
+        final float drawY = previousY[slot] + (y[slot] - previousY[slot]) * alpha;
+        batch.draw(
+                getAnimation(slot).getKeyFrame(elapsed[slot]),
+                drawX + drawOffsetX[v],
+                drawY + drawOffsetY[v],
+                drawWidth[v],
+                drawHeight[v]
+        );
+    }
+}
@@ -0,0 +1,48 @@
+package com.houseforest.matchthree;
+
+/**
+ * Small, seedable random generator (SplitMix64).
+ *
+ * Unlike MathUtils.random it is not shared: every board owns one, so the same seed and the
+ * same moves always produce the same pieces, and parallel simulations never contend on it.
+ */
+public class RandomSource {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public RandomSource(long seed) {
+        this.state = seed;
+    }
+
+    // Finalizer of SplitMix64, turns any sequence of distinct inputs into well-distributed outputs.
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    // Uniform in [0, bound).
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    // Uniform in [min, max).
+    public float nextFloat(float min, float max) {
+        return min + nextFloat() * (max - min);
+    }
+
+    // Uniform in [0, 1).
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+}
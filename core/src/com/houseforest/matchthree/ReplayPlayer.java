@@ -0,0 +1,73 @@
+package com.houseforest.matchthree;
+
+/**
+ * Re-drives a {@link Board} from a {@link MoveLog}, instead of the player.
+ *
+ * Call {@link #update()} right before every board update. A swap is played once the board has
+ * made as many updates as when it was recorded and has settled, so an animated replay follows
+ * the session's timing. {@link #runToEnd()} plays the rest of the log without rendering, as
+ * fast as the board can be updated.
+ */
+public class ReplayPlayer {
+
+    private final Board board;
+    private final MoveLog.Reader reader;
+    private final int width;
+    private boolean hasMove;
+
+    /**
+     * @param board Created from the log's size, variant count and seed.
+     */
+    public ReplayPlayer(Board board, MoveLog log) {
+        final BoardEngine engine = board.getEngine();
+        if (engine.getSeed() != log.getSeed() || engine.getWidth() != log.getWidth() || engine.getHeight() != log.getHeight()
+                || engine.getBoard().getVariantCount() != log.getVariantCount()) {
+            throw new IllegalArgumentException("The board was not created from the log");
+        }
+
+        this.board = board;
+        this.reader = log.read();
+        this.width = log.getWidth();
+        this.hasMove = reader.next();
+    }
+
+    /**
+     * Plays the next swap if it is due.
+     * @throws IllegalStateException If the swap is not valid on the replayed board.
+     */
+    public void update() {
+        if (!hasMove || board.getState() != Board.State.Idle || board.getTicks() < reader.getTick()) {
+            return;
+        }
+
+        final int move = reader.getMove();
+        final int x1 = MoveGenerator.getX(move, width);
+        final int y1 = MoveGenerator.getY(move, width);
+        final int x2 = MoveGenerator.getTargetX(move, width);
+        final int y2 = MoveGenerator.getTargetY(move, width);
+        final BoardEngine engine = board.getEngine();
+        if (!engine.isValidSwap(x1, y1, x2, y2)) {
+            throw new IllegalStateException("Swap " + (engine.getMoves() + 1) + " at tick " + reader.getTick() + " is not valid");
+        }
+        engine.swap(x1, y1, x2, y2);
+        hasMove = reader.next();
+    }
+
+    /**
+     * Plays all remaining swaps and lets the board settle after the last one.
+     * @return Board updates it took.
+     */
+    public long runToEnd() {
+        final long start = board.getTicks();
+        while (!isFinished()) {
+            update();
+            board.update(Game.UPDATE_STEP);
+        }
+        return board.getTicks() - start;
+    }
+
+    // All swaps played and the board settled after the last one.
+    public boolean isFinished() {
+        return !hasMove && board.getState() == Board.State.Idle;
+    }
+}
@@ -0,0 +1,132 @@
+package com.houseforest.matchthree;
+
+/**
+ * Aggregated statistics of simulated games. Each simulation thread fills its own
+ * instance, partial results are combined with {@link #merge(SimulationResults)}.
+ */
+public class SimulationResults {
+
+    private final int scoreBucketSize;
+
+    private long games;
+    private long moves;
+    private long deadBoards;
+    private long totalScore;
+    private int minScore;
+    private int maxScore;
+
+    // Games per score bucket, the last bucket collects everything above.
+    private final long[] scoreHistogram;
+
+    // Moves per cascade depth, the last bucket collects everything deeper.
+    private final long[] depthHistogram;
+
+    public SimulationResults(int scoreBucketSize, int scoreBuckets, int maxDepth) {
+        this.scoreBucketSize = scoreBucketSize;
+        this.scoreHistogram = new long[scoreBuckets];
+        this.depthHistogram = new long[maxDepth + 1];
+        this.minScore = Integer.MAX_VALUE;
+        this.maxScore = Integer.MIN_VALUE;
+    }
+
+    public void addMove(int depth) {
+        ++moves;
+        ++depthHistogram[Math.min(depth, depthHistogram.length - 1)];
+    }
+
+    public void addGame(int score, int deadBoards) {
+        ++games;
+        this.deadBoards += deadBoards;
+        totalScore += score;
+        minScore = Math.min(minScore, score);
+        maxScore = Math.max(maxScore, score);
+        ++scoreHistogram[Math.min(score / scoreBucketSize, scoreHistogram.length - 1)];
+    }
+
+    public void merge(SimulationResults other) {
+        games += other.games;
+        moves += other.moves;
+        deadBoards += other.deadBoards;
+        totalScore += other.totalScore;
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        for (int i = 0; i < scoreHistogram.length; ++i) {
+            scoreHistogram[i] += other.scoreHistogram[i];
+        }
+        for (int i = 0; i < depthHistogram.length; ++i) {
+            depthHistogram[i] += other.depthHistogram[i];
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getDeadBoards() {
+        return deadBoards;
+    }
+
+    // Dead boards per game.
+    public double getDeadBoardFrequency() {
+        return games == 0 ? 0.0 : (double) deadBoards / games;
+    }
+
+    public double getMeanScore() {
+        return games == 0 ? 0.0 : (double) totalScore / games;
+    }
+
+    public int getMinScore() {
+        return minScore;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    public int getScoreBucketSize() {
+        return scoreBucketSize;
+    }
+
+    public long[] getScoreHistogram() {
+        return scoreHistogram;
+    }
+
+    public long[] getDepthHistogram() {
+        return depthHistogram;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("games: ").append(games)
+          .append(", moves: ").append(moves)
+          .append(", dead boards: ").append(deadBoards)
+          .append(" (").append(getDeadBoardFrequency()).append(" per game)\n");
+        sb.append("score: mean ").append(getMeanScore())
+          .append(", min ").append(minScore)
+          .append(", max ").append(maxScore).append('\n');
+
+        sb.append("score histogram:\n");
+        for (int i = 0; i < scoreHistogram.length; ++i) {
+            if (scoreHistogram[i] != 0) {
+                sb.append("  ").append(i * scoreBucketSize)
+                  .append(i == scoreHistogram.length - 1 ? "+" : "-" + ((i + 1) * scoreBucketSize - 1))
+                  .append(": ").append(scoreHistogram[i]).append('\n');
+            }
+        }
+
+        sb.append("cascade depth histogram:\n");
+        for (int i = 0; i < depthHistogram.length; ++i) {
+            if (depthHistogram[i] != 0) {
+                sb.append("  ").append(i)
+                  .append(i == depthHistogram.length - 1 ? "+" : "")
+                  .append(": ").append(depthHistogram[i]).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
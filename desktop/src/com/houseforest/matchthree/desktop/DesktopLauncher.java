@@ -3,14 +3,31 @@ package com.houseforest.matchthree.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import com.houseforest.matchthree.Game;
+import com.houseforest.matchthree.MoveLog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 public class DesktopLauncher {
-	public static void main (String[] arg) {
+
+	// Optional arguments: board width, height and variant count, or "replay" and a move log file.
+	public static void main (String[] arg) throws IOException {
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
         config.width = Game.RESOLUTION.x;
         config.height = Game.RESOLUTION.y;
         config.foregroundFPS = 60;
         config.resizable = false;
-		new LwjglApplication(new Game(), config);
+
+        Game game;
+        if (arg.length >= 2 && arg[0].equals("replay")) {
+            game = new Game();
+            game.setReplay(MoveLog.fromBytes(Files.readAllBytes(Paths.get(arg[1]))));
+        } else if (arg.length >= 3) {
+            game = new Game(Integer.parseInt(arg[0]), Integer.parseInt(arg[1]), Integer.parseInt(arg[2]));
+        } else {
+            game = new Game();
+        }
+		new LwjglApplication(game, config);
 	}
 }
@@ -0,0 +1,26 @@
+package com.houseforest.matchthree.desktop;
+
+import com.houseforest.matchthree.BatchSimulator;
+import com.houseforest.matchthree.SimulationResults;
+
+public class SimulatorLauncher {
+
+	// Optional arguments: number of games, seed and moves per game.
+	public static void main (String[] arg) {
+        final int games = arg.length > 0 ? Integer.parseInt(arg[0]) : 100000;
+        final BatchSimulator simulator = new BatchSimulator();
+        if (arg.length > 1) {
+            simulator.setSeed(Long.parseLong(arg[1]));
+        }
+        if (arg.length > 2) {
+            simulator.setMovesPerGame(Integer.parseInt(arg[2]));
+        }
+
+        final long start = System.nanoTime();
+        final SimulationResults results = simulator.run(games);
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(results);
+        System.out.println(games + " games in " + seconds + "s (" + Math.round(games / seconds) + " games/s)");
+	}
+}